@@ -0,0 +1,45 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Executor for {@link BlueOceanDisplayURLImpl#getRunURLAsync(hudson.model.Run)}, {@link ShadowVerifier}
+ * and the rebuilds of {@link InvalidationQueue}.
+ * Uses virtual threads on Java 21 and later, and a small pool of daemon threads otherwise.
+ */
+final class AsyncExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncExecutor.class.getName());
+
+    private static final int THREADS = SystemProperties.getInteger(AsyncExecutor.class.getName() + ".threads", 2);
+
+    private AsyncExecutor() {
+    }
+
+    static ExecutorService get() {
+        return Holder.EXECUTOR;
+    }
+
+    private static ExecutorService create() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            // Java 17
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            LOGGER.log(Level.FINE, "Virtual threads are not available", e);
+        }
+        return Executors.newFixedThreadPool(THREADS, new NamingThreadFactory(new DaemonThreadFactory(), "Blue Ocean display URL"));
+    }
+
+    private static final class Holder {
+        static final ExecutorService EXECUTOR = create();
+    }
+}
@@ -0,0 +1,175 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Job;
+import hudson.model.RootAction;
+import jakarta.servlet.http.HttpServletResponse;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import net.sf.json.util.JSONBuilder;
+import org.apache.commons.io.IOUtils;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.kohsuke.stapler.verb.POST;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves the Blue Ocean URLs of many jobs and runs in one request.
+ * <p>
+ * <code>POST /blueocean-display-url/resolve</code> with a body such as
+ * <pre>{"jobs": [{"name": "folder/job", "runs": [1, 2]}]}</pre>
+ * answers, streaming each job as it is resolved,
+ * <pre>{"jobs": [{"name": "folder/job", "url": "...", "runs": [{"number": 1, "url": "...", "artifacts": "...", "changes": "...", "tests": "..."}]}]}</pre>
+ * Jobs that do not exist or cannot be read by the caller get an <code>error</code> instead of URLs.
+ * Build records are not loaded, so runs are not checked for existence.
+ * <p>
+ * Malformed requests, and requests for more than {@link #maxEntries} jobs and runs in total, are rejected with a 400 response.
+ */
+@Extension
+public class BlueOceanDisplayURLAction implements RootAction {
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static int maxEntries = SystemProperties.getInteger(BlueOceanDisplayURLAction.class.getName() + ".maxEntries", 1000);
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "blueocean-display-url";
+    }
+
+    @POST
+    public void doResolve(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+        Jenkins jenkins = Jenkins.get();
+        jenkins.checkPermission(Jenkins.READ);
+        List<Request> requests;
+        try {
+            requests = parse(IOUtils.toString(req.getReader()));
+        } catch (IllegalArgumentException | JSONException e) {
+            rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        BlueOceanDisplayURLImpl provider = ExtensionList.lookupSingleton(BlueOceanDisplayURLImpl.class);
+
+        rsp.setContentType("application/json;charset=UTF-8");
+        Writer writer = rsp.getWriter();
+        JSONBuilder json = new JSONBuilder(writer).object().key("jobs").array();
+        for (Request request : requests) {
+            json.object().key("name").value(request.name);
+            Job<?, ?> job = getJob(jenkins, request.name);
+            if (job == null) {
+                json.key("error").value("not found");
+            } else {
+                json.key("url").value(provider.getJobURL(job));
+                if (request.runs != null) {
+                    json.key("runs").array();
+                    for (int number : request.runs) {
+                        // builds are not loaded, links to old builds do not read their records
+                        RunURLs urls = provider.getURLs(job, number);
+                        json.object()
+                                .key("number").value(urls.getNumber())
+                                .key("url").value(urls.getRunURL())
+                                .key("artifacts").value(urls.getArtifactsURL())
+                                .key("changes").value(urls.getChangesURL())
+                                .key("tests").value(urls.getTestsURL())
+                                .endObject();
+                    }
+                    json.endArray();
+                }
+            }
+            json.endObject();
+            writer.flush();
+        }
+        json.endArray().endObject();
+        writer.flush();
+    }
+
+    /**
+     * Permissions are checked here, once per job. Jobs the caller can only discover are reported as missing,
+     * as failing once the response is committed would cut it off.
+     */
+    @CheckForNull
+    private static Job<?, ?> getJob(@NonNull Jenkins jenkins, @NonNull String fullName) {
+        try {
+            return jenkins.getItemByFullName(fullName, Job.class);
+        } catch (AccessDeniedException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the whole request before anything is written, so that malformed requests get a 400 response
+     *
+     * @throws IllegalArgumentException if the request is malformed or asks for more than {@link #maxEntries} jobs and runs
+     */
+    @NonNull
+    static List<Request> parse(@NonNull String body) {
+        JSONObject object = JSONObject.fromObject(body);
+        Object jobs = object.opt("jobs");
+        if (jobs == null) {
+            return List.of();
+        }
+        if (!(jobs instanceof JSONArray)) {
+            throw new IllegalArgumentException("jobs must be an array");
+        }
+        List<Request> requests = new ArrayList<>();
+        int entries = 0;
+        for (Object o : (JSONArray) jobs) {
+            if (!(o instanceof JSONObject) || !(((JSONObject) o).opt("name") instanceof String)) {
+                throw new IllegalArgumentException("each job must be an object with a name");
+            }
+            JSONObject job = (JSONObject) o;
+            Object runs = job.opt("runs");
+            int[] numbers = null;
+            if (runs != null) {
+                if (!(runs instanceof JSONArray)) {
+                    throw new IllegalArgumentException("runs must be an array");
+                }
+                JSONArray array = (JSONArray) runs;
+                numbers = new int[array.size()];
+                for (int n = 0; n < numbers.length; n++) {
+                    if (!(array.get(n) instanceof Integer) || (Integer) array.get(n) < 1) {
+                        throw new IllegalArgumentException("runs must be positive run numbers");
+                    }
+                    numbers[n] = (Integer) array.get(n);
+                }
+            }
+            entries += 1 + (numbers == null ? 0 : numbers.length);
+            if (entries > maxEntries) {
+                throw new IllegalArgumentException("at most " + maxEntries + " jobs and runs may be resolved at once");
+            }
+            requests.add(new Request(job.getString("name"), numbers));
+        }
+        return requests;
+    }
+
+    static final class Request {
+        private final String name;
+        private final int[] runs;
+
+        Request(String name, int[] runs) {
+            this.name = name;
+            this.runs = runs;
+        }
+    }
+}
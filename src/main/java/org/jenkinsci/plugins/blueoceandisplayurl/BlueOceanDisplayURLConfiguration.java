@@ -0,0 +1,217 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.Util;
+import hudson.util.FormValidation;
+import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.verb.POST;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The URL shapes generated by {@link BlueOceanDisplayURLImpl}, for Blue Ocean served behind a proxy that rewrites paths.
+ * Templates are compiled into {@link URLTemplates} when the configuration is saved, once per form submission;
+ * setters do not save on their own.
+ */
+@Extension
+public class BlueOceanDisplayURLConfiguration extends GlobalConfiguration {
+
+    private static final Logger LOGGER = Logger.getLogger(BlueOceanDisplayURLConfiguration.class.getName());
+
+    private String rootPath = URLTemplates.DEFAULT_ROOT_PATH;
+
+    private String jobTemplate = URLTemplates.DEFAULT_JOB_TEMPLATE;
+
+    private String runTemplate = URLTemplates.DEFAULT_RUN_TEMPLATE;
+
+    private String artifactsSuffix = URLTemplates.DEFAULT_ARTIFACTS_SUFFIX;
+
+    private String changesSuffix = URLTemplates.DEFAULT_CHANGES_SUFFIX;
+
+    private String testsSuffix = URLTemplates.DEFAULT_TESTS_SUFFIX;
+
+    /**
+     * Fraction of URL lookups checked by {@link ShadowVerifier}, <code>0</code> to disable
+     */
+    private double verificationRate;
+
+    private transient volatile URLTemplates templates;
+
+    public BlueOceanDisplayURLConfiguration() {
+        load();
+    }
+
+    @NonNull
+    public static BlueOceanDisplayURLConfiguration get() {
+        return ExtensionList.lookupSingleton(BlueOceanDisplayURLConfiguration.class);
+    }
+
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    @DataBoundSetter
+    public void setRootPath(String rootPath) {
+        String path = Util.fixNull(rootPath).trim();
+        this.rootPath = path.isEmpty() || path.endsWith("/") ? path : path + "/";
+    }
+
+    public String getJobTemplate() {
+        return jobTemplate;
+    }
+
+    @DataBoundSetter
+    public void setJobTemplate(String jobTemplate) {
+        this.jobTemplate = Util.fixEmptyAndTrim(jobTemplate) == null ? URLTemplates.DEFAULT_JOB_TEMPLATE : jobTemplate.trim();
+    }
+
+    public String getRunTemplate() {
+        return runTemplate;
+    }
+
+    @DataBoundSetter
+    public void setRunTemplate(String runTemplate) {
+        this.runTemplate = Util.fixEmptyAndTrim(runTemplate) == null ? URLTemplates.DEFAULT_RUN_TEMPLATE : runTemplate.trim();
+    }
+
+    public String getArtifactsSuffix() {
+        return artifactsSuffix;
+    }
+
+    @DataBoundSetter
+    public void setArtifactsSuffix(String artifactsSuffix) {
+        this.artifactsSuffix = Util.fixNull(artifactsSuffix);
+    }
+
+    public String getChangesSuffix() {
+        return changesSuffix;
+    }
+
+    @DataBoundSetter
+    public void setChangesSuffix(String changesSuffix) {
+        this.changesSuffix = Util.fixNull(changesSuffix);
+    }
+
+    public String getTestsSuffix() {
+        return testsSuffix;
+    }
+
+    @DataBoundSetter
+    public void setTestsSuffix(String testsSuffix) {
+        this.testsSuffix = Util.fixNull(testsSuffix);
+    }
+
+    public double getVerificationRate() {
+        return verificationRate;
+    }
+
+    @DataBoundSetter
+    public void setVerificationRate(double verificationRate) {
+        this.verificationRate = Math.max(0, Math.min(1, verificationRate));
+    }
+
+    /**
+     * @return the compiled templates, or the default ones if the configured templates are invalid
+     */
+    @NonNull
+    URLTemplates getTemplates() {
+        URLTemplates templates = this.templates;
+        if (templates == null) {
+            templates = compile();
+            this.templates = templates;
+        }
+        return templates;
+    }
+
+    @Override
+    public synchronized boolean configure(StaplerRequest2 req, JSONObject json) throws FormException {
+        String[] saved = {rootPath, jobTemplate, runTemplate, artifactsSuffix, changesSuffix, testsSuffix};
+        double savedVerificationRate = verificationRate;
+        req.bindJSON(this, json);
+        String field = "jobTemplate";
+        try {
+            URLTemplates.compile(URLTemplates.DEFAULT_ROOT_PATH, jobTemplate, URLTemplates.DEFAULT_RUN_TEMPLATE, "", "", "");
+            field = "runTemplate";
+            URLTemplates.compile(rootPath, jobTemplate, runTemplate, artifactsSuffix, changesSuffix, testsSuffix);
+        } catch (IllegalArgumentException e) {
+            // back to the saved configuration
+            rootPath = saved[0];
+            jobTemplate = saved[1];
+            runTemplate = saved[2];
+            artifactsSuffix = saved[3];
+            changesSuffix = saved[4];
+            testsSuffix = saved[5];
+            verificationRate = savedVerificationRate;
+            throw new FormException(e.getMessage(), field);
+        }
+        save();
+        return true;
+    }
+
+    /**
+     * Persists the configuration and applies it, once all fields are set
+     */
+    @Override
+    public synchronized void save() {
+        super.save();
+        templates = compile();
+        BlueOceanDisplayURLImpl provider = ExtensionList.lookupSingleton(BlueOceanDisplayURLImpl.class);
+        provider.reconfigure(templates);
+        provider.setVerificationRate(verificationRate);
+    }
+
+    /**
+     * Falls back to the default templates for invalid ones, which can only come from a configuration
+     * saved by hand or by an older version, as {@link #configure} rejects them
+     */
+    private URLTemplates compile() {
+        try {
+            return URLTemplates.compile(rootPath, jobTemplate, runTemplate, artifactsSuffix, changesSuffix, testsSuffix);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid Blue Ocean URL templates, using the default ones", e);
+            return URLTemplates.DEFAULT;
+        }
+    }
+
+    @POST
+    public FormValidation doCheckVerificationRate(@QueryParameter double value) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return value < 0 || value > 1 ? FormValidation.error("Must be between 0 and 1") : FormValidation.ok();
+    }
+
+    @POST
+    public FormValidation doCheckJobTemplate(@QueryParameter String value) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        if (Util.fixEmptyAndTrim(value) == null) {
+            return FormValidation.ok();
+        }
+        try {
+            URLTemplates.compile(URLTemplates.DEFAULT_ROOT_PATH, value.trim(), URLTemplates.DEFAULT_RUN_TEMPLATE, "", "", "");
+            return FormValidation.ok();
+        } catch (IllegalArgumentException e) {
+            return FormValidation.error(e.getMessage());
+        }
+    }
+
+    @POST
+    public FormValidation doCheckRunTemplate(@QueryParameter String value) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        if (Util.fixEmptyAndTrim(value) == null) {
+            return FormValidation.ok();
+        }
+        try {
+            URLTemplates.compile(URLTemplates.DEFAULT_ROOT_PATH, URLTemplates.DEFAULT_JOB_TEMPLATE, value.trim(), "", "", "");
+            return FormValidation.ok();
+        } catch (IllegalArgumentException e) {
+            return FormValidation.error(e.getMessage());
+        }
+    }
+}
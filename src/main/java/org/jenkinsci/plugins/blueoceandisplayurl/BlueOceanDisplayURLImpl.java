@@ -5,8 +5,6 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.Functions;
 import hudson.Util;
-import hudson.model.FreeStyleBuild;
-import hudson.model.FreeStyleProject;
 import hudson.model.Item;
 import hudson.model.ItemGroup;
 import hudson.model.Job;
@@ -15,11 +13,29 @@ import io.jenkins.blueocean.rest.factory.organization.AbstractOrganization;
 import io.jenkins.blueocean.rest.factory.organization.OrganizationFactory;
 import io.jenkins.blueocean.rest.model.BlueOrganization;
 import jenkins.branch.MultiBranchProject;
+import jenkins.model.Jenkins;
+import jenkins.model.JenkinsLocationConfiguration;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.blueoceandisplayurl.BlueOceanDisplayURLMetrics.Cache;
+import org.jenkinsci.plugins.blueoceandisplayurl.BlueOceanDisplayURLMetrics.Fallback;
+import org.jenkinsci.plugins.blueoceandisplayurl.BlueOceanDisplayURLMetrics.Method;
 import org.jenkinsci.plugins.displayurlapi.DisplayURLProvider;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.springframework.security.access.AccessDeniedException;
 
-import java.util.Set;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  *`@author Ivan Meredith
@@ -27,18 +43,39 @@ import java.util.Set;
 @Extension
 public class BlueOceanDisplayURLImpl extends DisplayURLProvider {
 
-    private static final Set<String> SUPPORTED_RUNS = Set.of(
-            FreeStyleBuild.class.getName(),
-            WorkflowRun.class.getName(),
-            "hudson.maven.AbstractMavenBuild"
-    );
+    private static final Logger LOGGER = Logger.getLogger(BlueOceanDisplayURLImpl.class.getName());
 
-    private static final Set<String> SUPPORTED_JOBS = Set.of(
-            WorkflowJob.class.getName(),
-            MultiBranchProject.class.getName(),
-            FreeStyleProject.class.getName(),
-            "hudson.maven.AbstractMavenProject"
-    );
+    private static final long ASYNC_TIMEOUT_MILLIS = SystemProperties.getLong(BlueOceanDisplayURLImpl.class.getName() + ".asyncTimeoutMillis", 1000L);
+
+    private static final String PIPELINE = "pipeline";
+
+    /**
+     * Cached {@link #getRoot()}, reset by {@link BlueOceanRootURLListener}
+     */
+    private volatile String root;
+
+    /**
+     * Compiled {@link BlueOceanDisplayURLConfiguration}, replaced by {@link #reconfigure(URLTemplates)}
+     */
+    private volatile URLTemplates templates;
+
+    private final JobURLCache jobURLCache = new JobURLCache();
+
+    private final JobURLStore store = new JobURLStore();
+
+    private final JobPathIndex jobPathIndex = new JobPathIndex();
+
+    private final OrganizationCache organizations = new OrganizationCache();
+
+    private final FolderPathCache folderPaths = new FolderPathCache();
+
+    private final SupportedTypes supportedTypes = new SupportedTypes();
+
+    private final StageIndex stages = new StageIndex();
+
+    private final ShadowVerifier verifier = new ShadowVerifier(this);
+
+    private final InvalidationQueue invalidations = new InvalidationQueue(this);
 
     @Override
     @NonNull
@@ -55,136 +92,651 @@ public class BlueOceanDisplayURLImpl extends DisplayURLProvider {
     @Override
     @NonNull
     public String getRoot() {
-        return super.getRoot() + "blue/";
+        String root = this.root;
+        if (root == null) {
+            root = super.getRoot() + templates().getRootPath();
+            // without a configured URL the root depends on the current request
+            if (JenkinsLocationConfiguration.get().getUrl() != null) {
+                this.root = root;
+            }
+        }
+        return root;
     }
 
     @Override
     @NonNull
     public String getRunURL(Run<?, ?> run) {
-        BlueOrganization organization = OrganizationFactory.getInstance().getContainingOrg(run.getParent());
-        if (organization == null || !isSupported(run)) {
-            return DisplayURLProvider.getDefault().getRunURL(run);
-        }
-
-        if (run instanceof WorkflowRun) {
-            WorkflowJob job = ((WorkflowRun) run).getParent();
-            if (job.getParent() instanceof MultiBranchProject) {
-                String jobURL = getJobURL(organization, ((MultiBranchProject) job.getParent()));
-                return String.format("%sdetail/%s/%d/", jobURL, job.getName(), run.getNumber());
-            }
+        long start = BlueOceanDisplayURLMetrics.start();
+        String url = getRunURL(run, null);
+        if (url == null) {
+            url = DisplayURLProvider.getDefault().getRunURL(run);
         }
-        Job job = run.getParent();
-        String jobURL = getJobURL(organization, job);
-        return String.format("%sdetail/%s/%d/", jobURL, Util.rawEncode(job.getName()), run.getNumber());
+        BlueOceanDisplayURLMetrics.stop(Method.RUN, start);
+        return url;
     }
 
     @Override
     @NonNull
     public String getArtifactsURL(Run<?, ?> run) {
-        if (isSupported(run)) {
-            return getRunURL(run) + "artifacts";
-        } else {
-            return DisplayURLProvider.getDefault().getArtifactsURL(run);
+        long start = BlueOceanDisplayURLMetrics.start();
+        String url = getRunURL(run, templates().getArtifactsSuffix());
+        if (url == null) {
+            url = DisplayURLProvider.getDefault().getArtifactsURL(run);
         }
+        BlueOceanDisplayURLMetrics.stop(Method.ARTIFACTS, start);
+        return url;
     }
 
     @Override
     @NonNull
     public String getChangesURL(Run<?, ?> run) {
-        if (isSupported(run)) {
-            return getRunURL(run) + "changes";
-        } else {
-            return DisplayURLProvider.getDefault().getChangesURL(run);
+        long start = BlueOceanDisplayURLMetrics.start();
+        String url = getRunURL(run, templates().getChangesSuffix());
+        if (url == null) {
+            url = DisplayURLProvider.getDefault().getChangesURL(run);
         }
+        BlueOceanDisplayURLMetrics.stop(Method.CHANGES, start);
+        return url;
     }
 
     @Override
     @NonNull
     public String getTestsURL(Run<?, ?> run) {
-        if (isSupported(run)) {
-            return getRunURL(run) + "tests";
-        } else {
-            return DisplayURLProvider.getDefault().getTestsURL(run);
+        long start = BlueOceanDisplayURLMetrics.start();
+        String url = getRunURL(run, templates().getTestsSuffix());
+        if (url == null) {
+            url = DisplayURLProvider.getDefault().getTestsURL(run);
         }
+        BlueOceanDisplayURLMetrics.stop(Method.TESTS, start);
+        return url;
     }
 
     @Override
     @NonNull
     public String getJobURL(Job<?, ?> job) {
-        BlueOrganization organization = OrganizationFactory.getInstance().getContainingOrg(job);
-        if (organization == null || !isSupported(job)) {
-            return DisplayURLProvider.getDefault().getJobURL(job);
+        long start = BlueOceanDisplayURLMetrics.start();
+        String url = null;
+        if (!isSupported(job)) {
+            BlueOceanDisplayURLMetrics.fallback(Fallback.UNSUPPORTED_TYPE);
+        } else {
+            JobURLCache.Entry urls = getJobURLs(job);
+            if (urls == null) {
+                BlueOceanDisplayURLMetrics.fallback(Fallback.NO_ORGANIZATION);
+            } else {
+                url = URLBuilder.jobURL(getRoot(), urls.getJobPath());
+            }
         }
-        return getJobURL(organization, job);
+        if (url == null) {
+            url = DisplayURLProvider.getDefault().getJobURL(job);
+        }
+        BlueOceanDisplayURLMetrics.stop(Method.JOB, start);
+        return url;
     }
 
+    /**
+     * Resolves the URLs of many runs at once, looking up the job paths once per job.
+     *
+     * @param runs to get the URLs of
+     * @return the run URLs, in iteration order of <code>runs</code>
+     */
     @NonNull
-    private String getJobURL(BlueOrganization organization, Job<?, ?> job) {
-        String jobPath = job.getParent() instanceof MultiBranchProject ? getFullNameForItemGroup(organization, job.getParent()) : getFullNameForItem(organization, job);
-        return String.format("%sorganizations/%s/%s/", getRoot(), Util.rawEncode(organization.getName()), Util.rawEncode(jobPath));
+    public Map<Run<?, ?>, String> getRunURLs(@NonNull Collection<? extends Run<?, ?>> runs) {
+        Map<Run<?, ?>, String> urls = new LinkedHashMap<>(runs.size() * 4 / 3 + 1);
+        forEachRunURL(runs, urls::put);
+        return urls;
     }
 
-    private static boolean isSupported(Run<?, ?> run) {
-        return isInstance(run, SUPPORTED_RUNS);
+    /**
+     * Resolves the URLs of many runs at once, looking up the job paths once per job.
+     * Each URL is handed to <code>consumer</code> as soon as it is built.
+     *
+     * @param runs to get the URLs of
+     * @param consumer receives each run with its URL
+     */
+    public void forEachRunURL(@NonNull Iterable<? extends Run<?, ?>> runs, @NonNull BiConsumer<Run<?, ?>, String> consumer) {
+        long start = BlueOceanDisplayURLMetrics.start();
+        String root = getRoot();
+        Map<Job<?, ?>, Optional<JobURLCache.Entry>> jobs = new HashMap<>();
+        for (Run<?, ?> run : runs) {
+            if (!isSupported(run)) {
+                BlueOceanDisplayURLMetrics.fallback(Fallback.UNSUPPORTED_TYPE);
+                consumer.accept(run, DisplayURLProvider.getDefault().getRunURL(run));
+                continue;
+            }
+            JobURLCache.Entry urls = jobs.computeIfAbsent(run.getParent(), job -> Optional.ofNullable(getJobURLs(job))).orElse(null);
+            if (urls == null) {
+                BlueOceanDisplayURLMetrics.fallback(Fallback.NO_ORGANIZATION);
+                consumer.accept(run, DisplayURLProvider.getDefault().getRunURL(run));
+            } else {
+                consumer.accept(run, templates().runURL(root, urls.getRunPath(), run.getNumber(), null));
+            }
+        }
+        BlueOceanDisplayURLMetrics.stop(Method.BULK, start);
     }
 
-    private static boolean isSupported(Job<?, ?> job) {
-        return isInstance(job, SUPPORTED_JOBS);
+    /**
+     * Resolves the URL of a run without blocking the caller, for notifiers running on build completion threads.
+     * Runs whose job paths are cached complete immediately. Others are resolved on a dedicated executor and
+     * complete with the classic URL if that takes longer than
+     * <code>org.jenkinsci.plugins.blueoceandisplayurl.BlueOceanDisplayURLImpl.asyncTimeoutMillis</code>.
+     *
+     * @param run to get the URL of
+     * @return the run URL, never completed exceptionally
+     */
+    @NonNull
+    public CompletableFuture<String> getRunURLAsync(@NonNull Run<?, ?> run) {
+        if (!isSupported(run)) {
+            BlueOceanDisplayURLMetrics.fallback(Fallback.UNSUPPORTED_TYPE);
+            return CompletableFuture.completedFuture(DisplayURLProvider.getDefault().getRunURL(run));
+        }
+        // the root and the classic URL may depend on the current request, which the executor threads do not have
+        String root = getRoot();
+        URLTemplates templates = templates();
+        Job<?, ?> job = run.getParent();
+        String fullName = job.getFullName();
+        JobURLCache.Entry cached = invalidations.isPending(fullName) ? null : jobURLCache.get(fullName);
+        if (cached != null) {
+            verifier.sample(job, cached);
+            return CompletableFuture.completedFuture(templates.runURL(root, cached.getRunPath(), run.getNumber(), null));
+        }
+        String classic = DisplayURLProvider.getDefault().getRunURL(run);
+        return CompletableFuture.supplyAsync(() -> getJobURLs(job), AsyncExecutor.get())
+                .orTimeout(ASYNC_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .handle((urls, failure) -> {
+                    if (urls != null) {
+                        return templates.runURL(root, urls.getRunPath(), run.getNumber(), null);
+                    }
+                    if (failure instanceof TimeoutException || failure != null && failure.getCause() instanceof TimeoutException) {
+                        BlueOceanDisplayURLMetrics.fallback(Fallback.TIMEOUT);
+                    } else if (failure != null) {
+                        BlueOceanDisplayURLMetrics.fallback(Fallback.ERROR);
+                        LOGGER.log(Level.FINE, "Failed to resolve the URL of " + run, failure);
+                    } else {
+                        BlueOceanDisplayURLMetrics.fallback(Fallback.NO_ORGANIZATION);
+                    }
+                    return classic;
+                });
     }
 
-    private static boolean isInstance(Object o, Set<String> clazzes) {
-        for (String clazz : clazzes) {
-            if (o != null && o.getClass().getName().equals(clazz)) {
-                return true;
+    /**
+     * Returns the URLs of a run without resolving them yet. Resolution happens once, on first access,
+     * and is shared by the run, artifacts, changes and tests URLs.
+     *
+     * @param run to get the URLs of
+     * @return the URLs of the run
+     */
+    @NonNull
+    public RunURLs getURLs(@NonNull Run<?, ?> run) {
+        return new RunURLs(this, run);
+    }
+
+    /**
+     * Links to a stage of a pipeline run, for notifications about a failing stage.
+     * Stages are recorded as they start, the flow graph is only scanned for runs started before a restart.
+     *
+     * @param run the pipeline run
+     * @param stageName name of the stage, the first stage of that name is linked to
+     * @return the stage URL, or the run URL if there is no such stage or Blue Ocean cannot display the run
+     */
+    @NonNull
+    public String getStageURL(@NonNull Run<?, ?> run, @NonNull String stageName) {
+        String url = getRunURL(run, null);
+        if (url == null) {
+            return DisplayURLProvider.getDefault().getRunURL(run);
+        }
+        String stageId = run instanceof WorkflowRun ? stages.getStageId((WorkflowRun) run, stageName) : null;
+        if (stageId == null) {
+            return url;
+        }
+        return new URLBuilder(url.length() + PIPELINE.length() + stageId.length() + 1)
+                .append(url)
+                .append(PIPELINE)
+                .append("/")
+                .append(stageId)
+                .build();
+    }
+
+    /**
+     * Links to the log of a step of a pipeline run, within the stage enclosing it.
+     *
+     * @param run the pipeline run
+     * @param node the step
+     * @return the step URL, or the run URL if Blue Ocean cannot display the run
+     */
+    @NonNull
+    public String getStepURL(@NonNull Run<?, ?> run, @NonNull FlowNode node) {
+        String url = getRunURL(run, null);
+        if (url == null) {
+            return DisplayURLProvider.getDefault().getRunURL(run);
+        }
+        String stageId = StageIndex.getEnclosingStageId(node);
+        URLBuilder builder = new URLBuilder(url.length() + 64).append(url).append(PIPELINE);
+        if (stageId != null) {
+            builder.append("/").append(stageId);
+        }
+        return builder.append("#step-").append(node.getId()).append("-log-1").build();
+    }
+
+    /**
+     * Resolves a Blue Ocean job or run URL back to its job, the reverse of {@link #getJobURL(Job)} and
+     * {@link #getRunURL(Run)}. For branches of a multibranch project this is the branch job.
+     *
+     * @param url absolute, or relative to the Blue Ocean root
+     * @return the job, or <code>null</code> if the URL does not point to a job the current user can read
+     */
+    @CheckForNull
+    public Job<?, ?> resolveJob(@NonNull String url) {
+        BlueOceanURLParser.Parsed parsed = templates().getParser().parse(url);
+        return parsed == null ? null : resolveReadableJob(parsed);
+    }
+
+    /**
+     * Resolves a Blue Ocean run URL back to its run, the reverse of {@link #getRunURL(Run)}.
+     *
+     * @param url absolute, or relative to the Blue Ocean root
+     * @return the run, or <code>null</code> if the URL does not point to a run the current user can read
+     */
+    @CheckForNull
+    public Run<?, ?> resolveRun(@NonNull String url) {
+        BlueOceanURLParser.Parsed parsed = templates().getParser().parse(url);
+        if (parsed == null || parsed.getNumber() < 0) {
+            return null;
+        }
+        Job<?, ?> job = resolveReadableJob(parsed);
+        return job == null ? null : job.getBuildByNumber(parsed.getNumber());
+    }
+
+    /**
+     * Like {@link #resolveJob(BlueOceanURLParser.Parsed)}, but items the current user can only discover,
+     * for which Jenkins throws rather than returning <code>null</code>, are not found either
+     */
+    @CheckForNull
+    private Job<?, ?> resolveReadableJob(@NonNull BlueOceanURLParser.Parsed parsed) {
+        try {
+            return resolveJob(parsed);
+        } catch (AccessDeniedException e) {
+            return null;
+        }
+    }
+
+    @CheckForNull
+    private Job<?, ?> resolveJob(@NonNull BlueOceanURLParser.Parsed parsed) {
+        Item item = resolveItem(parsed);
+        if (item instanceof MultiBranchProject) {
+            if (parsed.getName() == null) {
+                return null;
+            }
+            item = ((MultiBranchProject<?, ?>) item).getItem(parsed.getName());
+        }
+        return item instanceof Job ? (Job<?, ?>) item : null;
+    }
+
+    /**
+     * Finds the item owning a job path, through {@link JobPathIndex} or, for paths not indexed yet,
+     * by walking down from the organization base group.
+     */
+    @CheckForNull
+    private Item resolveItem(@NonNull BlueOceanURLParser.Parsed parsed) {
+        Jenkins jenkins = Jenkins.get();
+        String jobPath = parsed.getJobPath();
+        String fullName = jobPathIndex.get(jobPath);
+        if (fullName != null) {
+            Item item = jenkins.getItemByFullName(fullName);
+            if (item != null && jobPath.equals(getJobPath(item))) {
+                return item;
             }
         }
-        return false;
+        BlueOrganization organization = OrganizationFactory.getInstance().get(BlueOceanURLParser.decode(parsed.getOrganization()));
+        if (organization == null) {
+            return null;
+        }
+        ItemGroup<?> baseGroup = new OrganizationCache.Entry(organization).getBaseGroup();
+        String relativeName = BlueOceanURLParser.decode(parsed.getPath());
+        if (baseGroup != null && !baseGroup.getFullName().isEmpty()) {
+            relativeName = baseGroup.getFullName() + '/' + relativeName;
+        }
+        Item item = jenkins.getItemByFullName(relativeName);
+        return item != null && jobPath.equals(getJobPath(item)) ? item : null;
     }
 
+    /**
+     * @return the path {@link #getJobURL(Job)} generates for a job or multibranch project
+     */
+    @CheckForNull
+    private String getJobPath(@NonNull Item item) {
+        if (item instanceof Job) {
+            JobURLCache.Entry urls = getJobURLs((Job<?, ?>) item);
+            return urls == null ? null : urls.getJobPath();
+        }
+        OrganizationCache.Entry organization = organizations.getContainingOrg(item);
+        if (organization == null) {
+            return null;
+        }
+        if (item instanceof MultiBranchProject) {
+            return getProjectPath(organization, (MultiBranchProject<?, ?>) item);
+        }
+        return getJobPath(organization.getOrganization(), getFullNameForItem(organization.getBaseGroup(), item));
+    }
+
+    /**
+     * Returns the URLs of a build from its job and number, without loading the build record.
+     * The build is not checked for existence.
+     *
+     * @param job the job of the build
+     * @param number the build number
+     * @return the URLs of the build
+     */
     @NonNull
-    private String getJobURL(BlueOrganization organization, MultiBranchProject<?, ?> project) {
-        return String.format("%sorganizations/%s/%s/", getRoot(), Util.rawEncode(organization.getName()), Util.rawEncode(getFullNameForItem(organization, project)));
+    public RunURLs getURLs(@NonNull Job<?, ?> job, int number) {
+        return new RunURLs(this, job, number);
     }
 
     /**
-     * Returns full name relative to the <code>BlueOrganization</code> base. Each name is separated by '/'
+     * Returns the URLs of a build from its job full name and number, without loading the build record.
+     * The build is not checked for existence.
      *
-     * @param org the organization the item belongs to
-     * @param item to return the full name of
-     * @return full name relative to <code>BlueOrganization</code> base
+     * @param fullName full name of the job of the build
+     * @param number the build number
+     * @return the URLs of the build, or <code>null</code> if there is no such job the current user can read
      */
-    private static String getFullNameForItem(@CheckForNull BlueOrganization org, @NonNull Item item) {
-        ItemGroup<?> group = getBaseGroup(org);
-        return Functions.getRelativeNameFrom(item, group);
+    @CheckForNull
+    public RunURLs getURLs(@NonNull String fullName, int number) {
+        Job<?, ?> job;
+        try {
+            job = Jenkins.get().getItemByFullName(fullName, Job.class);
+        } catch (AccessDeniedException e) {
+            // discoverable but not readable
+            return null;
+        }
+        return job == null ? null : getURLs(job, number);
     }
 
     /**
-     * Returns full name relative to the <code>BlueOrganization</code> base. Each name is separated by '/'
+     * Builds the Blue Ocean URL of a build from its job, without loading the build record
      *
-     * @param org the organization the item belongs to
-     * @param itemGroup to return the full name of
-     * @return full name relative to <code>BlueOrganization</code> base
+     * @param job the job of the build
+     * @param number the build number
+     * @return the URL, or <code>null</code> if Blue Ocean cannot display the job
      */
-    private static String getFullNameForItemGroup(@CheckForNull BlueOrganization org, @NonNull ItemGroup itemGroup) {
-        if (itemGroup instanceof Item) {
-            return getFullNameForItem(org, (Item)itemGroup);
-        } else {
-            return itemGroup.getFullName();
+    @CheckForNull
+    String getRunURL(@NonNull Job<?, ?> job, int number) {
+        if (!isSupported(job)) {
+            BlueOceanDisplayURLMetrics.fallback(Fallback.UNSUPPORTED_TYPE);
+            return null;
         }
+        JobURLCache.Entry urls = getJobURLs(job);
+        if (urls == null) {
+            BlueOceanDisplayURLMetrics.fallback(Fallback.NO_ORGANIZATION);
+            return null;
+        }
+        return templates().runURL(getRoot(), urls.getRunPath(), number, null);
+    }
+
+    /**
+     * Builds the Blue Ocean URL of a run
+     *
+     * @param run to get the URL of
+     * @param suffix appended after the run number, e.g. <code>artifacts</code>
+     * @return the URL, or <code>null</code> if Blue Ocean cannot display the run
+     */
+    @CheckForNull
+    String getRunURL(@NonNull Run<?, ?> run, @CheckForNull String suffix) {
+        // cheap per-class check first, unsupported types never pay for the organization lookup
+        if (!isSupported(run)) {
+            BlueOceanDisplayURLMetrics.fallback(Fallback.UNSUPPORTED_TYPE);
+            return null;
+        }
+        JobURLCache.Entry urls = getJobURLs(run.getParent());
+        if (urls == null) {
+            BlueOceanDisplayURLMetrics.fallback(Fallback.NO_ORGANIZATION);
+            return null;
+        }
+        return templates().runURL(getRoot(), urls.getRunPath(), run.getNumber(), suffix);
+    }
+
+    /**
+     * Records a node starting a stage, called by {@link BlueOceanGraphListener}
+     *
+     * @param run the pipeline run
+     * @param node the new node
+     */
+    void recordStage(@NonNull Run<?, ?> run, @NonNull FlowNode node) {
+        stages.record(run, node);
+    }
+
+    /**
+     * Reads the paths stored by the previous run, called by {@link BlueOceanURLWarmUp} once jobs are loaded
+     */
+    void loadStore() {
+        store.load();
+    }
+
+    /**
+     * Computes and caches the paths of a job ahead of its first URL, called by {@link BlueOceanURLWarmUp}
+     *
+     * @param job to warm up
+     */
+    void warmUp(@NonNull Job<?, ?> job) {
+        getJobURLs(job);
+    }
+
+    /**
+     * Queues the invalidation of cached URLs of an item, called by {@link BlueOceanURLItemListener}.
+     * URLs of the item are computed without caches until the invalidation is applied.
+     *
+     * @param fullName full name the item had when its URLs were computed
+     * @param descendants whether URLs of items below it should be invalidated as well
+     * @param folder whether the item is a folder
+     */
+    void queueInvalidation(@NonNull String fullName, boolean descendants, boolean folder) {
+        invalidations.add(fullName, descendants, folder);
+    }
+
+    /**
+     * Applies queued invalidations right away instead of waiting for the batch
+     */
+    void flushInvalidations() {
+        invalidations.flush();
+    }
+
+    /**
+     * @return whether cached URLs of an item wait for a queued invalidation
+     */
+    boolean isInvalidationPending(@NonNull String fullName) {
+        return invalidations.isPending(fullName);
+    }
+
+    /**
+     * Drops cached URLs of an item, called by {@link InvalidationQueue}
+     *
+     * @param fullName full name the item had when its URLs were computed
+     * @param descendants whether URLs of items below it should be dropped as well
+     */
+    void invalidate(@NonNull String fullName, boolean descendants) {
+        jobURLCache.invalidate(fullName, descendants);
+        store.remove(fullName, descendants);
+        jobPathIndex.remove(fullName, descendants);
+    }
+
+    /**
+     * @return changes whenever cached URLs are invalidated
+     */
+    long cacheGeneration() {
+        return jobURLCache.generation();
+    }
+
+    /**
+     * Drops the cached root, called by {@link BlueOceanRootURLListener} when the Jenkins URL changes
+     */
+    void invalidateRoot() {
+        root = null;
+    }
+
+    /**
+     * @return the compiled URL templates
+     */
+    @NonNull
+    URLTemplates templates() {
+        URLTemplates templates = this.templates;
+        if (templates == null) {
+            templates = BlueOceanDisplayURLConfiguration.get().getTemplates();
+            this.templates = templates;
+        }
+        return templates;
     }
 
     /**
-     * Tries to obtain the base group for a <code>BlueOrganization</code>
+     * Switches to new URL templates, called by {@link BlueOceanDisplayURLConfiguration} when saved.
+     * Cached paths are dropped if the templates changed.
      *
-     * @param org to get the base group of
-     * @return the base group
+     * @param templates the new templates
      */
-    private static ItemGroup<?> getBaseGroup(BlueOrganization org) {
-        ItemGroup<?> group = null;
-        if (org instanceof AbstractOrganization) {
-            group = ((AbstractOrganization) org).getGroup();
+    void reconfigure(@NonNull URLTemplates templates) {
+        if (templates.equals(this.templates)) {
+            return;
         }
-        return group;
+        this.templates = templates;
+        root = null;
+        jobURLCache.clear();
+        jobPathIndex.clear();
+    }
+
+    /**
+     * Sets the fraction of lookups checked by {@link ShadowVerifier}, called by {@link BlueOceanDisplayURLConfiguration} when saved
+     *
+     * @param rate between <code>0</code> and <code>1</code>
+     */
+    void setVerificationRate(double rate) {
+        verifier.setRate(rate);
+    }
+
+    /**
+     * @return a description of the last URL that differed from the uncached computation, or <code>null</code>
+     */
+    @CheckForNull
+    String getLastMismatch() {
+        return verifier.getLastMismatch();
+    }
+
+    /**
+     * Drops cached organization lookups and folder paths, called by {@link InvalidationQueue} when folders change
+     */
+    void invalidateFolders() {
+        organizations.clear();
+        folderPaths.clear();
+    }
+
+    /**
+     * Returns the Blue Ocean paths of a job, computing and caching them on first use.
+     * Paths stored before a restart are reused as long as the job and its folders are unchanged.
+     *
+     * @param job to get the paths of
+     * @return the paths, or <code>null</code> if the job does not belong to an organization
+     */
+    @CheckForNull
+    private JobURLCache.Entry getJobURLs(@NonNull Job<?, ?> job) {
+        String fullName = job.getFullName();
+        if (invalidations.isPending(fullName)) {
+            // cached paths may be stale until the pending invalidation is applied
+            return computeUncached(job, templates());
+        }
+        JobURLCache.Entry urls = jobURLCache.get(fullName);
+        BlueOceanDisplayURLMetrics.cache(Cache.JOB, urls != null);
+        if (urls == null) {
+            long generation = jobURLCache.generation();
+            urls = store.get(job, templates());
+            if (urls == null) {
+                OrganizationCache.Entry organization = organizations.getContainingOrg(job);
+                if (organization == null) {
+                    return null;
+                }
+                urls = computeJobURLs(organization, job);
+                store.put(job, templates(), urls);
+            }
+            jobURLCache.put(fullName, urls, generation);
+            // branch URLs are indexed under their multibranch project
+            jobPathIndex.put(urls.getJobPath(), job.getParent() instanceof MultiBranchProject ? job.getParent().getFullName() : fullName);
+        }
+        verifier.sample(job, urls);
+        return urls;
+    }
+
+    /**
+     * The paths of a job as computed before any caching, with <code>getContainingOrg</code>,
+     * <code>Functions.getRelativeNameFrom</code> and <code>Util.rawEncode</code>
+     *
+     * @param job to get the paths of
+     * @param templates to render the paths with
+     * @return the paths, or <code>null</code> if the job does not belong to an organization
+     */
+    @CheckForNull
+    static JobURLCache.Entry computeUncached(@NonNull Job<?, ?> job, @NonNull URLTemplates templates) {
+        BlueOrganization organization = OrganizationFactory.getInstance().getContainingOrg(job);
+        if (organization == null) {
+            return null;
+        }
+        ItemGroup<?> baseGroup = organization instanceof AbstractOrganization ? ((AbstractOrganization) organization).getGroup() : null;
+        boolean branch = job.getParent() instanceof MultiBranchProject;
+        Item item = branch ? (Item) job.getParent() : job;
+        String jobPath = templates.jobPath(Util.rawEncode(organization.getName()), Util.rawEncode(Functions.getRelativeNameFrom(item, baseGroup)));
+        // branch job names are already encoded by branch-api
+        String name = branch && job instanceof WorkflowJob ? job.getName() : Util.rawEncode(job.getName());
+        return new JobURLCache.Entry(jobPath, templates.runPath(jobPath, name));
+    }
+
+    @NonNull
+    private JobURLCache.Entry computeJobURLs(@NonNull OrganizationCache.Entry organization, @NonNull Job<?, ?> job) {
+        ItemGroup<?> baseGroup = organization.getBaseGroup();
+        String jobPath;
+        String name;
+        if (job.getParent() instanceof MultiBranchProject) {
+            jobPath = getProjectPath(organization, (MultiBranchProject<?, ?>) job.getParent());
+            // branch job names are already encoded by branch-api
+            name = job instanceof WorkflowJob ? job.getName() : Util.rawEncode(job.getName());
+        } else {
+            jobPath = getJobPath(organization.getOrganization(), getFullNameForItem(baseGroup, job));
+            name = Util.rawEncode(job.getName());
+        }
+        return new JobURLCache.Entry(jobPath, templates().runPath(jobPath, name));
+    }
+
+    /**
+     * Returns the job path of a multibranch project, computed once and shared by all its branches.
+     */
+    @NonNull
+    private String getProjectPath(@NonNull OrganizationCache.Entry organization, @NonNull MultiBranchProject<?, ?> project) {
+        String fullName = project.getFullName();
+        String jobPath = jobURLCache.getProjectPath(fullName);
+        if (jobPath == null) {
+            long generation = jobURLCache.generation();
+            jobPath = getJobPath(organization.getOrganization(), getFullNameForItem(organization.getBaseGroup(), project));
+            jobURLCache.putProjectPath(fullName, jobPath, generation);
+        }
+        return jobPath;
+    }
+
+    @NonNull
+    private String getJobPath(@NonNull BlueOrganization organization, @NonNull String fullName) {
+        return templates().jobPath(Util.rawEncode(organization.getName()), Util.rawEncode(fullName));
+    }
+
+    private boolean isSupported(Run<?, ?> run) {
+        return run != null && supportedTypes.isSupportedRun(run.getClass());
+    }
+
+    private boolean isSupported(Job<?, ?> job) {
+        return job != null && supportedTypes.isSupportedJob(job.getClass());
+    }
+
+    /**
+     * Returns full name relative to the <code>BlueOrganization</code> base. Each name is separated by '/'
+     *
+     * @param baseGroup the base group of the organization the item belongs to
+     * @param item to return the full name of
+     * @return full name relative to <code>BlueOrganization</code> base
+     */
+    private String getFullNameForItem(@CheckForNull ItemGroup<?> baseGroup, @NonNull Item item) {
+        return folderPaths.getRelativeName(item, baseGroup);
     }
 
 }
@@ -0,0 +1,255 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import jenkins.util.SystemProperties;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Counters and timers of {@link BlueOceanDisplayURLImpl}, exposed over JMX as
+ * <code>org.jenkinsci.plugins.blueoceandisplayurl:type=Metrics</code>.
+ * <p>
+ * Disabled by default, in which case instrumented code only reads {@link #enabled}. Enable with the
+ * <code>org.jenkinsci.plugins.blueoceandisplayurl.BlueOceanDisplayURLMetrics.enabled</code> system property
+ * or the <code>Enabled</code> JMX attribute.
+ */
+public final class BlueOceanDisplayURLMetrics implements BlueOceanDisplayURLMetricsMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(BlueOceanDisplayURLMetrics.class.getName());
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable over JMX and from the script console")
+    static volatile boolean enabled = SystemProperties.getBoolean(BlueOceanDisplayURLMetrics.class.getName() + ".enabled");
+
+    /**
+     * Upper bounds of the latency buckets, in nanoseconds. The last bucket is unbounded.
+     */
+    private static final long[] BUCKETS = {1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L};
+
+    private static final String[] BUCKET_NAMES = {"lt1us", "lt10us", "lt100us", "lt1ms", "lt10ms", "ge10ms"};
+
+    static final BlueOceanDisplayURLMetrics INSTANCE = new BlueOceanDisplayURLMetrics();
+
+    enum Method {
+        RUN, JOB, ARTIFACTS, CHANGES, TESTS, BULK
+    }
+
+    enum Fallback {
+        NO_ORGANIZATION, UNSUPPORTED_TYPE, TIMEOUT, ERROR
+    }
+
+    enum Cache {
+        JOB, ORGANIZATION
+    }
+
+    private final Timer[] timers = new Timer[Method.values().length];
+    private final LongAdder[] fallbacks = adders(Fallback.values().length);
+    private final LongAdder[] cacheHits = adders(Cache.values().length);
+    private final LongAdder[] cacheMisses = adders(Cache.values().length);
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+
+    private BlueOceanDisplayURLMetrics() {
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new Timer();
+        }
+    }
+
+    /**
+     * @return a start timestamp to hand to {@link #stop}, <code>0</code> when disabled
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    static void stop(Method method, long start) {
+        if (start != 0L) {
+            INSTANCE.timers[method.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    static void fallback(Fallback reason) {
+        if (enabled) {
+            INSTANCE.fallbacks[reason.ordinal()].increment();
+        }
+    }
+
+    static void cache(Cache cache, boolean hit) {
+        if (enabled) {
+            (hit ? INSTANCE.cacheHits : INSTANCE.cacheMisses)[cache.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Counts a check of {@link ShadowVerifier}, whether metrics are enabled or not as checks are opt-in already
+     */
+    static void verified(boolean match) {
+        INSTANCE.verifications.increment();
+        if (!match) {
+            INSTANCE.mismatches.increment();
+        }
+    }
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName("org.jenkinsci.plugins.blueoceandisplayurl:type=Metrics"));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by an earlier Jenkins instance in this JVM
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to register Blue Ocean display URL metrics", e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        BlueOceanDisplayURLMetrics.enabled = enabled;
+    }
+
+    @Override
+    public Map<String, Long> getInvocations() {
+        return perMethod(t -> t.count.sum());
+    }
+
+    @Override
+    public Map<String, Long> getMeanLatencyNanos() {
+        return perMethod(t -> {
+            long count = t.count.sum();
+            return count == 0 ? 0 : t.totalNanos.sum() / count;
+        });
+    }
+
+    @Override
+    public Map<String, Long> getMaxLatencyNanos() {
+        return perMethod(t -> t.maxNanos.get());
+    }
+
+    @Override
+    public Map<String, Long> getLatencyHistogram() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (Method method : Method.values()) {
+            LongAdder[] buckets = timers[method.ordinal()].buckets;
+            for (int i = 0; i < buckets.length; i++) {
+                histogram.put(name(method) + '.' + BUCKET_NAMES[i], buckets[i].sum());
+            }
+        }
+        return histogram;
+    }
+
+    @Override
+    public Map<String, Long> getFallbacks() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Fallback reason : Fallback.values()) {
+            counts.put(name(reason), fallbacks[reason.ordinal()].sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getCacheHits() {
+        return perCache(cacheHits);
+    }
+
+    @Override
+    public Map<String, Long> getCacheMisses() {
+        return perCache(cacheMisses);
+    }
+
+    @Override
+    public long getVerifications() {
+        return verifications.sum();
+    }
+
+    @Override
+    public long getVerificationMismatches() {
+        return mismatches.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (Timer timer : timers) {
+            timer.reset();
+        }
+        reset(fallbacks);
+        reset(cacheHits);
+        reset(cacheMisses);
+        verifications.reset();
+        mismatches.reset();
+    }
+
+    private Map<String, Long> perMethod(ToLongFunction<Timer> value) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Method method : Method.values()) {
+            values.put(name(method), value.applyAsLong(timers[method.ordinal()]));
+        }
+        return values;
+    }
+
+    private static Map<String, Long> perCache(LongAdder[] adders) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Cache cache : Cache.values()) {
+            counts.put(name(cache), adders[cache.ordinal()].sum());
+        }
+        return counts;
+    }
+
+    private static String name(Enum<?> e) {
+        return e.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static void reset(LongAdder[] adders) {
+        for (LongAdder adder : adders) {
+            adder.reset();
+        }
+    }
+
+    private static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+        private final LongAdder[] buckets = adders(BUCKET_NAMES.length);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            int bucket = 0;
+            while (bucket < BUCKETS.length && nanos >= BUCKETS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            BlueOceanDisplayURLMetrics.reset(buckets);
+        }
+    }
+}
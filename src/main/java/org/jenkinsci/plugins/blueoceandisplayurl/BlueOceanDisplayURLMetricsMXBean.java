@@ -0,0 +1,54 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link BlueOceanDisplayURLMetrics}. Maps are keyed by lower case method, fallback reason or cache name.
+ */
+public interface BlueOceanDisplayURLMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return number of calls per provider method
+     */
+    Map<String, Long> getInvocations();
+
+    /**
+     * @return mean latency per provider method, in nanoseconds
+     */
+    Map<String, Long> getMeanLatencyNanos();
+
+    /**
+     * @return max latency per provider method, in nanoseconds
+     */
+    Map<String, Long> getMaxLatencyNanos();
+
+    /**
+     * @return number of calls per provider method and latency bucket, keyed <code>&lt;method&gt;.&lt;bucket&gt;</code>
+     */
+    Map<String, Long> getLatencyHistogram();
+
+    /**
+     * @return number of URLs handed to the classic provider, per reason
+     */
+    Map<String, Long> getFallbacks();
+
+    Map<String, Long> getCacheHits();
+
+    Map<String, Long> getCacheMisses();
+
+    /**
+     * @return number of URLs checked by shadow verification
+     */
+    long getVerifications();
+
+    /**
+     * @return number of checked URLs that differed from the uncached computation
+     */
+    long getVerificationMismatches();
+
+    void reset();
+}
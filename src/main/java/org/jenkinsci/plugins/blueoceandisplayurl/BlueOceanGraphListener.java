@@ -0,0 +1,37 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Queue;
+import hudson.model.Run;
+import org.jenkinsci.plugins.workflow.flow.GraphListener;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records stage nodes of running pipelines as they start, so that
+ * {@link BlueOceanDisplayURLImpl#getStageURL(Run, String)} does not scan the flow graph.
+ */
+@Extension
+public class BlueOceanGraphListener implements GraphListener {
+
+    private static final Logger LOGGER = Logger.getLogger(BlueOceanGraphListener.class.getName());
+
+    @Override
+    public void onNewHead(FlowNode node) {
+        if (StageIndex.getStageName(node) == null) {
+            return;
+        }
+        try {
+            Queue.Executable executable = node.getExecution().getOwner().getExecutable();
+            if (executable instanceof Run) {
+                ExtensionList.lookupSingleton(BlueOceanDisplayURLImpl.class).recordStage((Run<?, ?>) executable, node);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to record stage " + node.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.JenkinsLocationConfiguration;
+
+/**
+ * Resets the root cached by {@link BlueOceanDisplayURLImpl} when the Jenkins URL is saved.
+ */
+@Extension
+public class BlueOceanRootURLListener extends SaveableListener {
+
+    @Override
+    public void onChange(Saveable o, XmlFile file) {
+        if (o instanceof JenkinsLocationConfiguration) {
+            ExtensionList.lookupSingleton(BlueOceanDisplayURLImpl.class).invalidateRoot();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Job;
+import hudson.model.Run;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+
+import java.util.Set;
+
+/**
+ * Declares {@link Job} and {@link Run} types that Blue Ocean can display.
+ * Other types get the URLs of {@link org.jenkinsci.plugins.displayurlapi.DisplayURLProvider#getDefault()}.
+ * <p>
+ * Each implementation is asked at most once per class, answers are cached until the extension list changes.
+ */
+public abstract class BlueOceanSupportedType implements ExtensionPoint {
+
+    /**
+     * @param jobClass a {@link Job} subclass
+     * @return whether Blue Ocean can display jobs of this class
+     */
+    public boolean isSupportedJob(@NonNull Class<?> jobClass) {
+        return false;
+    }
+
+    /**
+     * @param runClass a {@link Run} subclass
+     * @return whether Blue Ocean can display runs of this class
+     */
+    public boolean isSupportedRun(@NonNull Class<?> runClass) {
+        return false;
+    }
+
+    @NonNull
+    public static ExtensionList<BlueOceanSupportedType> all() {
+        return ExtensionList.lookup(BlueOceanSupportedType.class);
+    }
+
+    /**
+     * Freestyle, Pipeline and Maven types, including their subclasses.
+     * Maven types are matched by name so that the Maven plugin stays optional.
+     */
+    @Extension
+    public static class Default extends BlueOceanSupportedType {
+
+        private static final Set<String> SUPPORTED_RUNS = Set.of(
+                FreeStyleBuild.class.getName(),
+                WorkflowRun.class.getName(),
+                "hudson.maven.AbstractMavenBuild"
+        );
+
+        private static final Set<String> SUPPORTED_JOBS = Set.of(
+                WorkflowJob.class.getName(),
+                FreeStyleProject.class.getName(),
+                "hudson.maven.AbstractMavenProject"
+        );
+
+        @Override
+        public boolean isSupportedJob(@NonNull Class<?> jobClass) {
+            return isSubclassOf(jobClass, SUPPORTED_JOBS);
+        }
+
+        @Override
+        public boolean isSupportedRun(@NonNull Class<?> runClass) {
+            return isSubclassOf(runClass, SUPPORTED_RUNS);
+        }
+
+        private static boolean isSubclassOf(Class<?> clazz, Set<String> names) {
+            for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                if (names.contains(c.getName())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.listeners.ItemListener;
+
+/**
+ * Keeps the cached Blue Ocean URLs of {@link BlueOceanDisplayURLImpl} in line with the item tree.
+ * Events are queued and applied in batches by {@link InvalidationQueue}, so that bursts such as branch indexing
+ * do not invalidate caches item by item. Any change to a folder may add, remove or move an organization or change
+ * the path of the items below it, so it also drops cached organization lookups and folder paths.
+ */
+@Extension
+public class BlueOceanURLItemListener extends ItemListener {
+
+    @Override
+    public void onCreated(Item item) {
+        provider().queueInvalidation(item.getFullName(), false, item instanceof ItemGroup);
+    }
+
+    @Override
+    public void onUpdated(Item item) {
+        if (item instanceof ItemGroup) {
+            provider().queueInvalidation(item.getFullName(), true, true);
+        }
+    }
+
+    @Override
+    public void onDeleted(Item item) {
+        provider().queueInvalidation(item.getFullName(), item instanceof ItemGroup, item instanceof ItemGroup);
+    }
+
+    /**
+     * Called for renames and moves, once for the item and once for each of its descendants.
+     * New and moved jobs are indexed for {@link BlueOceanDisplayURLImpl#resolveJob(String)} once the batch is applied.
+     */
+    @Override
+    public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+        BlueOceanDisplayURLImpl provider = provider();
+        boolean folder = item instanceof ItemGroup;
+        provider.queueInvalidation(oldFullName, folder, folder);
+        provider.queueInvalidation(newFullName, folder, folder);
+    }
+
+    private static BlueOceanDisplayURLImpl provider() {
+        return ExtensionList.lookupSingleton(BlueOceanDisplayURLImpl.class);
+    }
+}
@@ -0,0 +1,32 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.AdministrativeMonitor;
+
+/**
+ * Warns administrators when shadow verification found Blue Ocean URLs that differ from the uncached computation.
+ *
+ * @see BlueOceanDisplayURLConfiguration#getVerificationRate()
+ */
+@Extension
+public class BlueOceanURLMismatchMonitor extends AdministrativeMonitor {
+
+    @Override
+    public String getDisplayName() {
+        return "Blue Ocean display URL mismatches";
+    }
+
+    @Override
+    public boolean isActivated() {
+        return getMismatches() > 0;
+    }
+
+    public long getMismatches() {
+        return BlueOceanDisplayURLMetrics.INSTANCE.getVerificationMismatches();
+    }
+
+    public String getLastMismatch() {
+        return ExtensionList.lookupSingleton(BlueOceanDisplayURLImpl.class).getLastMismatch();
+    }
+}
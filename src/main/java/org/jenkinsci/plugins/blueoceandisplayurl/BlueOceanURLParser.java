@@ -0,0 +1,130 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits Blue Ocean URLs such as <code>/blue/organizations/&lt;org&gt;/&lt;path&gt;/detail/&lt;branch&gt;/&lt;n&gt;/</code>
+ * into the parts generated by {@link BlueOceanDisplayURLImpl}.
+ * The expression is derived from the {@link URLTemplates} the URLs are generated with.
+ */
+final class BlueOceanURLParser {
+
+    private static final String SEGMENT = "[^/?#]+";
+
+    private final URLTemplates templates;
+
+    private final Pattern url;
+
+    /**
+     * @param templates the templates URLs are generated with
+     * @param rootPath the Blue Ocean root path
+     * @param jobTemplate the job template
+     * @param runTemplate the run template up to the run number
+     */
+    BlueOceanURLParser(@NonNull URLTemplates templates, @NonNull String rootPath, @NonNull String jobTemplate, @NonNull String runTemplate) {
+        this.templates = templates;
+        // like Blue Ocean, accept job URLs without their trailing '/'
+        boolean slash = jobTemplate.endsWith("/");
+        String job = URLTemplate.compile(slash ? jobTemplate.substring(0, jobTemplate.length() - 1) : jobTemplate, URLTemplates.JOB_VARIABLES)
+                .toRegex("(?<organization>" + SEGMENT + ")", "(?<pipeline>" + SEGMENT + ")");
+        String run = URLTemplate.compile(runTemplate, URLTemplates.RUN_VARIABLES)
+                .toRegex("(?<branch>" + SEGMENT + ")");
+        this.url = Pattern.compile("(?:.*?/" + (rootPath.isEmpty() ? "" : Pattern.quote(rootPath)) + ")?"
+                + job + (slash ? "/?" : "")
+                + "(?:" + run + "(?:(?<number>[0-9]+)(?:[^0-9].*)?)?)?(?:[?#].*)?");
+    }
+
+    /**
+     * @param url absolute, or relative to the Blue Ocean root
+     * @return the parts of the URL, or <code>null</code> if it is not a Blue Ocean job or run URL
+     */
+    @CheckForNull
+    Parsed parse(@NonNull String url) {
+        Matcher m = this.url.matcher(url);
+        if (!m.matches()) {
+            return null;
+        }
+        String organization = m.group("organization");
+        String path = m.group("pipeline");
+        String number = m.group("number");
+        int n = -1;
+        if (number != null) {
+            try {
+                n = Integer.parseInt(number);
+            } catch (NumberFormatException e) {
+                // too large to be a run number
+                return null;
+            }
+        }
+        return new Parsed(organization, path, templates.jobPath(organization, path), m.group("branch"), n);
+    }
+
+    /**
+     * Reverts {@link hudson.Util#rawEncode(String)}
+     */
+    @NonNull
+    static String decode(@NonNull String segment) {
+        return URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    static final class Parsed {
+        private final String organization;
+        private final String path;
+        private final String jobPath;
+        private final String name;
+        private final int number;
+
+        Parsed(String organization, String path, String jobPath, String name, int number) {
+            this.organization = organization;
+            this.path = path;
+            this.jobPath = jobPath;
+            this.name = name;
+            this.number = number;
+        }
+
+        /**
+         * @return encoded organization name
+         */
+        @NonNull
+        String getOrganization() {
+            return organization;
+        }
+
+        /**
+         * @return encoded path relative to the organization base group
+         */
+        @NonNull
+        String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the job or branch name of the run part, as it appears in the URL
+         */
+        @CheckForNull
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return the run number, or <code>-1</code> for job URLs
+         */
+        int getNumber() {
+            return number;
+        }
+
+        /**
+         * @return the job path, as cached by {@link JobURLCache.Entry#getJobPath()}
+         */
+        @NonNull
+        String getJobPath() {
+            return jobPath;
+        }
+    }
+}
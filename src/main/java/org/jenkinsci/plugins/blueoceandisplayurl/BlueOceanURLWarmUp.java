@@ -0,0 +1,103 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.ExtensionList;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Job;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fills the caches of {@link BlueOceanDisplayURLImpl} in the background once jobs are loaded,
+ * so that the first notifications after a restart do not resolve organizations and paths themselves.
+ * The same thread first loads the paths kept by {@link JobURLStore}.
+ */
+public final class BlueOceanURLWarmUp {
+
+    private static final Logger LOGGER = Logger.getLogger(BlueOceanURLWarmUp.class.getName());
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static boolean enabled = SystemProperties.getBoolean(BlueOceanURLWarmUp.class.getName() + ".enabled", true);
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static int threads = SystemProperties.getInteger(BlueOceanURLWarmUp.class.getName() + ".threads",
+            Runtime.getRuntime().availableProcessors());
+
+    private BlueOceanURLWarmUp() {
+    }
+
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void warmUp() {
+        Thread thread = new Thread(BlueOceanURLWarmUp::run, "Blue Ocean display URL warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void run() {
+        BlueOceanDisplayURLImpl provider = ExtensionList.lookupSingleton(BlueOceanDisplayURLImpl.class);
+        // the store is bypassed until loaded, so startup does not wait for it
+        provider.loadStore();
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Job<?, ?>> jobs = new ArrayList<>();
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+                jobs.add(job);
+            }
+        }
+        if (warmUp(provider, jobs)) {
+            LOGGER.log(Level.FINE, "Warmed up URLs of {0} jobs in {1} ms",
+                    new Object[] {jobs.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)});
+        }
+    }
+
+    /**
+     * Fills the caches with the URLs of jobs on {@link #threads} threads
+     *
+     * @return whether all jobs were warmed up
+     */
+    static boolean warmUp(@NonNull BlueOceanDisplayURLImpl provider, @NonNull List<Job<?, ?>> jobs) {
+        int workers = Math.max(1, Math.min(threads, jobs.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(workers,
+                new NamingThreadFactory(new DaemonThreadFactory(), "Blue Ocean display URL warm-up"));
+        AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> {
+                try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                    for (int n = next.getAndIncrement(); n < jobs.size(); n = next.getAndIncrement()) {
+                        try {
+                            provider.warmUp(jobs.get(n));
+                        } catch (RuntimeException e) {
+                            LOGGER.log(Level.FINE, "Failed to warm up URLs of " + jobs.get(n).getFullName(), e);
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
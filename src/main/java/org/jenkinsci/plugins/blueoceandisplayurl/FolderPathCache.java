@@ -0,0 +1,106 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Functions;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import jenkins.util.SystemProperties;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incremental replacement for {@link Functions#getRelativeNameFrom(Item, ItemGroup)}: each folder keeps its path
+ * relative to an organization base group, and an item's path is its folder's path plus its own name.
+ * The cost of a lookup then no longer grows with the depth of the folder hierarchy.
+ * <p>
+ * Set the <code>org.jenkinsci.plugins.blueoceandisplayurl.FolderPathCache.enabled</code> system property to
+ * <code>false</code> to walk the ancestors on every lookup instead.
+ */
+final class FolderPathCache {
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static boolean enabled = SystemProperties.getBoolean(FolderPathCache.class.getName() + ".enabled", true);
+
+    private final ConcurrentMap<ItemGroup<?>, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Returns full name relative to <code>baseGroup</code>. Each name is separated by '/'
+     *
+     * @param item to return the full name of
+     * @param baseGroup the base group of the organization the item belongs to, <code>null</code> for full names
+     * @return full name relative to <code>baseGroup</code>
+     */
+    String getRelativeName(@NonNull Item item, @CheckForNull ItemGroup<?> baseGroup) {
+        if (!enabled) {
+            return Functions.getRelativeNameFrom(item, baseGroup);
+        }
+        ItemGroup<?> parent = item.getParent();
+        if (parent == baseGroup) {
+            return item.getName();
+        }
+        String parentPath = getGroupPath(parent, baseGroup, generation.get());
+        if (parentPath == null) {
+            // not below the base group
+            return Functions.getRelativeNameFrom(item, baseGroup);
+        }
+        return parentPath.isEmpty() ? item.getName() : parentPath + '/' + item.getName();
+    }
+
+    /**
+     * @return path of <code>group</code> relative to <code>baseGroup</code>, empty for a root group when there is
+     * no base group, or <code>null</code> if <code>group</code> is not below <code>baseGroup</code>
+     */
+    @CheckForNull
+    private String getGroupPath(@NonNull ItemGroup<?> group, @CheckForNull ItemGroup<?> baseGroup, long generation) {
+        if (!(group instanceof Item)) {
+            return baseGroup == null ? "" : null;
+        }
+        Entry entry = entries.get(group);
+        if (entry != null && entry.baseGroup == baseGroup) {
+            return entry.path;
+        }
+        Item item = (Item) group;
+        ItemGroup<?> parent = item.getParent();
+        String path;
+        if (parent == baseGroup) {
+            path = item.getName();
+        } else {
+            String parentPath = getGroupPath(parent, baseGroup, generation);
+            if (parentPath == null) {
+                return null;
+            }
+            path = parentPath.isEmpty() ? item.getName() : parentPath + '/' + item.getName();
+        }
+        entry = new Entry(baseGroup, path);
+        entries.put(group, entry);
+        // a folder moved while computing, the entry may be stale
+        if (this.generation.get() != generation) {
+            entries.remove(group, entry);
+        }
+        return path;
+    }
+
+    /**
+     * Drops all paths, called when a folder is renamed, moved or deleted
+     */
+    void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    private static final class Entry {
+        private final ItemGroup<?> baseGroup;
+        private final String path;
+
+        Entry(ItemGroup<?> baseGroup, String path) {
+            this.baseGroup = baseGroup;
+            this.path = path;
+        }
+    }
+}
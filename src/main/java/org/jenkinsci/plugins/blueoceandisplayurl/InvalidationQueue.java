@@ -0,0 +1,234 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Batches the item events of {@link BlueOceanURLItemListener}, so that bursts such as branch indexing or renaming an
+ * organization folder invalidate and rebuild cached paths once.
+ * <p>
+ * Events are collected for {@link #delayMillis}, then collapsed: items below an invalidated folder are covered by it,
+ * and many items of the same folder are replaced by the folder. Until their batch is applied, items with pending
+ * events are computed on demand without caches. Jobs of an applied batch are computed again on {@link AsyncExecutor},
+ * in chunks of {@link #REBUILD_CHUNK} jobs, to keep the shared timer thread free.
+ */
+final class InvalidationQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(InvalidationQueue.class.getName());
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long delayMillis = SystemProperties.getLong(InvalidationQueue.class.getName() + ".delayMillis", 250L);
+
+    /**
+     * Number of pending items of one folder above which the whole folder is invalidated instead
+     */
+    private static final int COLLAPSE_THRESHOLD = 16;
+
+    /**
+     * Number of jobs computed again per task on {@link AsyncExecutor}
+     */
+    private static final int REBUILD_CHUNK = 100;
+
+    private final BlueOceanDisplayURLImpl provider;
+
+    private final ConcurrentMap<String, Event> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile Future<?> scheduledFlush;
+
+    InvalidationQueue(@NonNull BlueOceanDisplayURLImpl provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * Queues the invalidation of an item
+     *
+     * @param fullName full name the item had when its URLs were computed
+     * @param descendants whether URLs of items below it should be invalidated as well
+     * @param folder whether the item is a folder, whose change may move organizations and folder paths
+     */
+    void add(@NonNull String fullName, boolean descendants, boolean folder) {
+        pending.merge(fullName, new Event(descendants, folder),
+                (a, b) -> new Event(a.descendants || b.descendants, a.folder || b.folder));
+        if (scheduled.compareAndSet(false, true)) {
+            scheduledFlush = Timer.get().schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return whether cached URLs of an item may be stale because of an event not applied yet
+     */
+    boolean isPending(@NonNull String fullName) {
+        if (pending.isEmpty()) {
+            return false;
+        }
+        if (pending.containsKey(fullName)) {
+            return true;
+        }
+        for (int i = fullName.lastIndexOf('/'); i > 0; i = fullName.lastIndexOf('/', i - 1)) {
+            Event event = pending.get(fullName.substring(0, i));
+            if (event != null && event.descendants) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the pending events, called on a timer thread or directly to apply them right away
+     */
+    synchronized void flush() {
+        Future<?> scheduledFlush = this.scheduledFlush;
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        scheduled.set(false);
+        Map<String, Event> batch = new HashMap<>(pending);
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, Boolean> collapsed = collapse(batch);
+        if (batch.values().stream().anyMatch(event -> event.folder)) {
+            provider.invalidateFolders();
+        }
+        for (Map.Entry<String, Boolean> e : collapsed.entrySet()) {
+            provider.invalidate(e.getKey(), e.getValue());
+        }
+        for (Map.Entry<String, Event> e : batch.entrySet()) {
+            // events that came in meanwhile stay pending for the next batch
+            pending.remove(e.getKey(), e.getValue());
+        }
+        rebuild(collapsed);
+    }
+
+    /**
+     * @return the items to invalidate, with whether to invalidate their descendants
+     */
+    @NonNull
+    private static Map<String, Boolean> collapse(@NonNull Map<String, Event> batch) {
+        Map<String, Integer> children = new HashMap<>();
+        for (String fullName : batch.keySet()) {
+            children.merge(parent(fullName), 1, Integer::sum);
+        }
+        Set<String> folders = new HashSet<>();
+        for (Map.Entry<String, Event> e : batch.entrySet()) {
+            if (e.getValue().descendants) {
+                folders.add(e.getKey());
+            }
+        }
+        for (Map.Entry<String, Integer> e : children.entrySet()) {
+            if (e.getValue() > COLLAPSE_THRESHOLD && !e.getKey().isEmpty()) {
+                folders.add(e.getKey());
+            }
+        }
+        Map<String, Boolean> collapsed = new HashMap<>();
+        for (String fullName : batch.keySet()) {
+            if (!isBelow(fullName, folders)) {
+                collapsed.put(fullName, folders.contains(fullName));
+            }
+        }
+        for (String folder : folders) {
+            if (!isBelow(folder, folders)) {
+                collapsed.put(folder, true);
+            }
+        }
+        return collapsed;
+    }
+
+    /**
+     * Computes the URLs of the jobs of a batch again, off the timer thread once it is applied
+     */
+    private void rebuild(@NonNull Map<String, Boolean> collapsed) {
+        try {
+            AsyncExecutor.get().execute(() -> {
+                List<Job<?, ?>> jobs = jobs(collapsed);
+                for (int i = 0; i < jobs.size(); i += REBUILD_CHUNK) {
+                    List<Job<?, ?>> chunk = jobs.subList(i, Math.min(jobs.size(), i + REBUILD_CHUNK));
+                    AsyncExecutor.get().execute(() -> warmUp(chunk));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.FINE, "Skipped rebuilding Blue Ocean URLs", e);
+        }
+    }
+
+    @NonNull
+    private static List<Job<?, ?>> jobs(@NonNull Map<String, Boolean> collapsed) {
+        List<Job<?, ?>> jobs = new ArrayList<>();
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            Jenkins jenkins = Jenkins.get();
+            for (Map.Entry<String, Boolean> e : collapsed.entrySet()) {
+                Item item = jenkins.getItemByFullName(e.getKey());
+                if (item instanceof Job) {
+                    jobs.add((Job<?, ?>) item);
+                } else if (item instanceof ItemGroup && e.getValue()) {
+                    jobs.addAll(((ItemGroup<?>) item).getAllItems(Job.class));
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, "Failed to list jobs to rebuild Blue Ocean URLs of", e);
+        }
+        return jobs;
+    }
+
+    private void warmUp(@NonNull List<Job<?, ?>> jobs) {
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            for (Job<?, ?> job : jobs) {
+                try {
+                    provider.warmUp(job);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.FINE, "Failed to rebuild Blue Ocean URLs of " + job.getFullName(), e);
+                }
+            }
+        }
+    }
+
+    private static boolean isBelow(@NonNull String fullName, @NonNull Set<String> folders) {
+        for (int i = fullName.lastIndexOf('/'); i > 0; i = fullName.lastIndexOf('/', i - 1)) {
+            if (folders.contains(fullName.substring(0, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NonNull
+    private static String parent(@NonNull String fullName) {
+        int i = fullName.lastIndexOf('/');
+        return i < 0 ? "" : fullName.substring(0, i);
+    }
+
+    private static final class Event {
+        private final boolean descendants;
+        private final boolean folder;
+
+        Event(boolean descendants, boolean folder) {
+            this.descendants = descendants;
+            this.folder = folder;
+        }
+    }
+}
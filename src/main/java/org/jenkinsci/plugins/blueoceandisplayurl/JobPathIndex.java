@@ -0,0 +1,54 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps the generated <code>organizations/&lt;org&gt;/&lt;path&gt;/</code> job paths back to the full name of the job,
+ * or of the multibranch project for branch jobs.
+ * Entries may lag behind renames, callers check the item they find against its current path.
+ */
+final class JobPathIndex {
+
+    private final ConcurrentMap<String, String> byPath = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, String> byName = new ConcurrentHashMap<>();
+
+    @CheckForNull
+    String get(@NonNull String jobPath) {
+        return byPath.get(jobPath);
+    }
+
+    void put(@NonNull String jobPath, @NonNull String fullName) {
+        String previous = byName.put(fullName, jobPath);
+        if (previous != null && !previous.equals(jobPath)) {
+            byPath.remove(previous, fullName);
+        }
+        byPath.put(jobPath, fullName);
+    }
+
+    void remove(@NonNull String fullName, boolean descendants) {
+        String jobPath = byName.remove(fullName);
+        if (jobPath != null) {
+            byPath.remove(jobPath, fullName);
+        }
+        if (descendants) {
+            String prefix = fullName + '/';
+            byName.entrySet().removeIf(e -> {
+                if (e.getKey().startsWith(prefix)) {
+                    byPath.remove(e.getValue(), e.getKey());
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    void clear() {
+        byName.clear();
+        byPath.clear();
+    }
+}
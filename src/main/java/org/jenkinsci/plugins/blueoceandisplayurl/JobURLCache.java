@@ -0,0 +1,117 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the Blue Ocean paths computed for a job, keyed by the job full name.
+ * Paths are relative to the Blue Ocean root so that root URL changes do not require invalidation.
+ */
+final class JobURLCache {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Job paths of multibranch projects, shared by all their branches
+     */
+    private final ConcurrentMap<String, String> projectPaths = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped by every invalidation, so that entries computed concurrently with one are not kept
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    @CheckForNull
+    Entry get(@NonNull String fullName) {
+        return entries.get(fullName);
+    }
+
+    /**
+     * @return the current generation, to be read before computing an entry and passed to {@link #put}
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches an entry unless the cache was invalidated since <code>generation</code>
+     */
+    void put(@NonNull String fullName, @NonNull Entry entry, long generation) {
+        entries.put(fullName, entry);
+        if (this.generation.get() != generation) {
+            entries.remove(fullName, entry);
+        }
+    }
+
+    @CheckForNull
+    String getProjectPath(@NonNull String fullName) {
+        return projectPaths.get(fullName);
+    }
+
+    /**
+     * Caches the job path of a multibranch project unless the cache was invalidated since <code>generation</code>
+     */
+    void putProjectPath(@NonNull String fullName, @NonNull String jobPath, long generation) {
+        projectPaths.put(fullName, jobPath);
+        if (this.generation.get() != generation) {
+            projectPaths.remove(fullName, jobPath);
+        }
+    }
+
+    /**
+     * Drops the entry of an item
+     *
+     * @param fullName full name the item had when the entry was computed
+     * @param descendants whether entries of items below <code>fullName</code> should be dropped as well
+     */
+    void invalidate(@NonNull String fullName, boolean descendants) {
+        generation.incrementAndGet();
+        entries.remove(fullName);
+        projectPaths.remove(fullName);
+        if (descendants) {
+            String prefix = fullName + '/';
+            entries.keySet().removeIf(key -> key.startsWith(prefix));
+            projectPaths.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+        projectPaths.clear();
+    }
+
+    /**
+     * Paths of a job relative to the Blue Ocean root
+     */
+    static final class Entry {
+        private final String jobPath;
+        private final String runPath;
+
+        Entry(@NonNull String jobPath, @NonNull String runPath) {
+            this.jobPath = jobPath;
+            this.runPath = runPath;
+        }
+
+        /**
+         * @return the job template rendered, <code>organizations/&lt;org&gt;/&lt;path&gt;/</code> by default
+         */
+        @NonNull
+        String getJobPath() {
+            return jobPath;
+        }
+
+        /**
+         * @return the job path followed by the run template up to the run number,
+         *         <code>organizations/&lt;org&gt;/&lt;path&gt;/detail/&lt;name&gt;/</code> by default
+         */
+        @NonNull
+        String getRunPath() {
+            return runPath;
+        }
+    }
+}
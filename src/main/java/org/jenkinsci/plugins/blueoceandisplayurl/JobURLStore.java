@@ -0,0 +1,343 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.ExtensionList;
+import hudson.model.AbstractItem;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.AtomicFileWriter;
+import io.jenkins.blueocean.rest.factory.organization.OrganizationFactory;
+import io.jenkins.blueocean.rest.model.BlueOrganization;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the paths of {@link JobURLCache} across restarts, in an append-only file under <code>JENKINS_HOME</code>.
+ * <p>
+ * Each line either records the paths of a job, along with a fingerprint of the URL templates and of the
+ * <code>config.xml</code> files of the job and its folders, or drops the paths of a job. Records whose fingerprint
+ * no longer matches are ignored, so stale paths are recomputed one job at a time on first use. The file starts with
+ * a fingerprint of the organizations and is discarded when they changed, e.g. after installing an organization plugin.
+ * <p>
+ * The file is loaded in the background once jobs are loaded, by {@link BlueOceanURLWarmUp}. Lines are written in
+ * batches on a timer thread, and the file is compacted when loaded and whenever superseded lines outnumber live ones.
+ * If the file cannot be written, the store is disabled until the next restart.
+ */
+final class JobURLStore {
+
+    private static final Logger LOGGER = Logger.getLogger(JobURLStore.class.getName());
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static boolean enabled = SystemProperties.getBoolean(JobURLStore.class.getName() + ".enabled", true);
+
+    private static final String HEADER = "#";
+
+    private static final String PUT = "+";
+
+    private static final String REMOVE = "-";
+
+    private static final char SEPARATOR = '\t';
+
+    private static final long FLUSH_DELAY_MILLIS = 1000L;
+
+    /**
+     * Lines the file may have before it is compacted, on top of one per live record
+     */
+    private static final int COMPACTION_SLACK = 1000;
+
+    private final File file;
+
+    /**
+     * Records by job full name, sorted so that the records below a folder are a range.
+     * <code>null</code> until {@link #load()}, in which case the store is bypassed.
+     */
+    private volatile ConcurrentNavigableMap<String, Record> records;
+
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * Lines in the file, guarded by <code>this</code>
+     */
+    private int lines;
+
+    /**
+     * Whether writing failed, guarded by <code>this</code>
+     */
+    private boolean failed;
+
+    /**
+     * Fingerprint of the organizations the records were computed with
+     */
+    private long layout;
+
+    /**
+     * Store in <code>JENKINS_HOME</code>
+     */
+    JobURLStore() {
+        this(null);
+    }
+
+    /**
+     * @param file to keep paths in, or <code>null</code> for the default file under <code>JENKINS_HOME</code>
+     */
+    JobURLStore(@CheckForNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the stored paths of a job, or <code>null</code> if there are none or the job changed since they were stored
+     */
+    @CheckForNull
+    JobURLCache.Entry get(@NonNull Job<?, ?> job, @NonNull URLTemplates templates) {
+        Map<String, Record> records = this.records;
+        if (!enabled || records == null) {
+            return null;
+        }
+        Record record = records.get(job.getFullName());
+        return record != null && record.fingerprint == fingerprint(job, templates) ? record.entry : null;
+    }
+
+    void put(@NonNull Job<?, ?> job, @NonNull URLTemplates templates, @NonNull JobURLCache.Entry entry) {
+        Map<String, Record> records = this.records;
+        String fullName = job.getFullName();
+        if (!enabled || records == null || !isStorable(fullName)) {
+            return;
+        }
+        Record record = new Record(fingerprint(job, templates), entry);
+        records.put(fullName, record);
+        append(line(fullName, record));
+    }
+
+    /**
+     * Drops the paths of a job
+     *
+     * @param fullName full name the job had when its paths were stored
+     * @param descendants whether paths of jobs below <code>fullName</code> should be dropped as well
+     */
+    void remove(@NonNull String fullName, boolean descendants) {
+        ConcurrentNavigableMap<String, Record> records = this.records;
+        if (!enabled || records == null) {
+            return;
+        }
+        if (records.remove(fullName) != null) {
+            append(REMOVE + SEPARATOR + fullName);
+        }
+        if (descendants) {
+            String prefix = fullName + '/';
+            Map<String, Record> below = records.subMap(prefix, prefix + Character.MAX_VALUE);
+            for (String key : below.keySet()) {
+                if (below.remove(key) != null) {
+                    append(REMOVE + SEPARATOR + key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the file, discarding it if the organizations changed since it was written. Called once jobs are loaded.
+     */
+    synchronized void load() {
+        if (records != null || failed) {
+            return;
+        }
+        ConcurrentNavigableMap<String, Record> loaded = new ConcurrentSkipListMap<>();
+        layout = organizationLayout();
+        File file = getFile();
+        lines = 0;
+        if (file != null && file.isFile()) {
+            try (BufferedReader r = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String header = r.readLine();
+                if (header != null && header.equals(HEADER + SEPARATOR + layout)) {
+                    for (String line = r.readLine(); line != null; line = r.readLine()) {
+                        lines++;
+                        String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+                        if (fields.length == 5 && PUT.equals(fields[0])) {
+                            loaded.put(fields[1], new Record(Long.parseLong(fields[2]), new JobURLCache.Entry(fields[3], fields[4])));
+                        } else if (fields.length == 2 && REMOVE.equals(fields[0])) {
+                            loaded.remove(fields[1]);
+                        }
+                    }
+                } else {
+                    LOGGER.log(Level.FINE, "Organizations changed, discarding {0}", file);
+                }
+            } catch (IOException | NumberFormatException e) {
+                LOGGER.log(Level.WARNING, "Failed to read " + file + ", Blue Ocean URLs will be recomputed", e);
+                loaded.clear();
+            }
+            compact(file, loaded);
+        }
+        records = loaded;
+    }
+
+    /**
+     * Writes pending lines. If they cannot be written, the file is deleted as it misses them, and the store is bypassed.
+     */
+    synchronized void flush() {
+        flushScheduled.set(false);
+        File file = getFile();
+        Map<String, Record> records = this.records;
+        if (pending.isEmpty() || file == null || records == null) {
+            return;
+        }
+        // only flush removes lines, so the head of the queue is this batch
+        List<String> batch = new ArrayList<>(pending);
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            boolean exists = file.isFile();
+            try (Writer w = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8))) {
+                if (!exists) {
+                    w.write(HEADER + SEPARATOR + layout + '\n');
+                }
+                for (String line : batch) {
+                    w.write(line);
+                    w.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write " + file + ", Blue Ocean URLs will not be kept across restarts", e);
+            disable(file);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            pending.poll();
+        }
+        lines += batch.size();
+        if (lines > records.size() * 2 + COMPACTION_SLACK) {
+            compact(file, records);
+        }
+    }
+
+    /**
+     * Stops using the store until the next restart, guarded by <code>this</code>
+     */
+    private void disable(File file) {
+        failed = true;
+        records = null;
+        pending.clear();
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to delete " + file, e);
+        }
+    }
+
+    private void append(@NonNull String line) {
+        pending.add(line);
+        if (flushScheduled.compareAndSet(false, true)) {
+            Timer.get().schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Rewrites the file with one line per job
+     */
+    private synchronized void compact(File file, Map<String, Record> records) {
+        try {
+            AtomicFileWriter w = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+            try {
+                w.write(HEADER + SEPARATOR + layout + '\n');
+                int written = 0;
+                for (Map.Entry<String, Record> e : records.entrySet()) {
+                    w.write(line(e.getKey(), e.getValue()) + '\n');
+                    written++;
+                }
+                w.commit();
+                lines = written;
+            } finally {
+                w.abort();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to compact " + file, e);
+        }
+    }
+
+    private static String line(String fullName, Record record) {
+        return PUT + SEPARATOR + fullName + SEPARATOR + record.fingerprint
+                + SEPARATOR + record.entry.getJobPath() + SEPARATOR + record.entry.getRunPath();
+    }
+
+    @CheckForNull
+    private File getFile() {
+        if (file != null) {
+            return file;
+        }
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins == null ? null : new File(jenkins.getRootDir(), JobURLStore.class.getName() + ".log");
+    }
+
+    /**
+     * Fingerprint of the organization factories, their organizations and the groups they map to,
+     * which decide the organization and relative path of every job.
+     */
+    private static long organizationLayout() {
+        long fingerprint = 17;
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            for (OrganizationFactory factory : ExtensionList.lookup(OrganizationFactory.class)) {
+                fingerprint = 31 * fingerprint + factory.getClass().getName().hashCode();
+                for (BlueOrganization organization : factory.list()) {
+                    ItemGroup<?> group = new OrganizationCache.Entry(organization).getBaseGroup();
+                    fingerprint = 31 * fingerprint + organization.getName().hashCode();
+                    fingerprint = 31 * fingerprint + (group == null ? 0 : group.getFullName().hashCode());
+                }
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Fingerprint of the configuration the paths of a job depend on, that is the URL templates and the
+     * <code>config.xml</code> of the job and of each folder above it.
+     */
+    private static long fingerprint(@NonNull Job<?, ?> job, @NonNull URLTemplates templates) {
+        long fingerprint = 17 + templates.fingerprint();
+        for (Object item = job; item instanceof AbstractItem; item = ((AbstractItem) item).getParent()) {
+            File config = ((AbstractItem) item).getConfigFile().getFile();
+            fingerprint = 31 * fingerprint + config.lastModified();
+            fingerprint = 31 * fingerprint + config.length();
+        }
+        return fingerprint;
+    }
+
+    private static boolean isStorable(String fullName) {
+        return fullName.indexOf(SEPARATOR) < 0 && fullName.indexOf('\n') < 0 && fullName.indexOf('\r') < 0;
+    }
+
+    private static final class Record {
+        private final long fingerprint;
+        private final JobURLCache.Entry entry;
+
+        Record(long fingerprint, JobURLCache.Entry entry) {
+            this.fingerprint = fingerprint;
+            this.entry = entry;
+        }
+    }
+}
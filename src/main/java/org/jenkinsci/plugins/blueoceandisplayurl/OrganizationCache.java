@@ -0,0 +1,98 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import io.jenkins.blueocean.rest.factory.organization.AbstractOrganization;
+import io.jenkins.blueocean.rest.factory.organization.OrganizationFactory;
+import io.jenkins.blueocean.rest.model.BlueOrganization;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the <code>BlueOrganization</code> containing an <code>ItemGroup</code>, together with its base group.
+ * Groups outside of any organization are cached as well.
+ */
+final class OrganizationCache {
+
+    private final ConcurrentMap<ItemGroup<?>, Optional<Entry>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param item to get the organization of
+     * @return the organization containing the item, or <code>null</code> if there is none
+     */
+    @CheckForNull
+    Entry getContainingOrg(@NonNull Item item) {
+        ItemGroup<?> group = item instanceof ItemGroup ? (ItemGroup<?>) item : item.getParent();
+        return getContainingOrg(group);
+    }
+
+    /**
+     * @param group to get the organization of
+     * @return the organization containing the group, or <code>null</code> if there is none
+     */
+    @CheckForNull
+    Entry getContainingOrg(@NonNull ItemGroup<?> group) {
+        Optional<Entry> entry = entries.get(group);
+        BlueOceanDisplayURLMetrics.cache(BlueOceanDisplayURLMetrics.Cache.ORGANIZATION, entry != null);
+        if (entry == null) {
+            long generation = this.generation.get();
+            BlueOrganization organization = OrganizationFactory.getInstance().getContainingOrg(group);
+            entry = Optional.ofNullable(organization).map(Entry::new);
+            entries.put(group, entry);
+            // a folder changed while computing, the entry may be stale
+            if (this.generation.get() != generation) {
+                entries.remove(group, entry);
+            }
+        }
+        return entry.orElse(null);
+    }
+
+    void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    static final class Entry {
+        private final BlueOrganization organization;
+        private final ItemGroup<?> baseGroup;
+
+        Entry(@NonNull BlueOrganization organization) {
+            this.organization = organization;
+            this.baseGroup = getBaseGroup(organization);
+        }
+
+        @NonNull
+        BlueOrganization getOrganization() {
+            return organization;
+        }
+
+        /**
+         * @return the group item names are relative to, or <code>null</code> if they are full names
+         */
+        @CheckForNull
+        ItemGroup<?> getBaseGroup() {
+            return baseGroup;
+        }
+
+        /**
+         * Tries to obtain the base group for a <code>BlueOrganization</code>
+         *
+         * @param org to get the base group of
+         * @return the base group
+         */
+        private static ItemGroup<?> getBaseGroup(BlueOrganization org) {
+            ItemGroup<?> group = null;
+            if (org instanceof AbstractOrganization) {
+                group = ((AbstractOrganization) org).getGroup();
+            }
+            return group;
+        }
+    }
+}
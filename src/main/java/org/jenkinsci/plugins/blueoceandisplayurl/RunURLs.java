@@ -0,0 +1,129 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Job;
+import hudson.model.Run;
+import org.jenkinsci.plugins.displayurlapi.DisplayURLProvider;
+
+/**
+ * The Blue Ocean URLs of a run, resolved on first access.
+ * The run URL is computed once and the artifacts, changes and tests URLs are derived from it.
+ * <p>
+ * Handles created from a job and a build number never load the build record.
+ *
+ * @see BlueOceanDisplayURLImpl#getURLs(Run)
+ * @see BlueOceanDisplayURLImpl#getURLs(Job, int)
+ */
+public final class RunURLs {
+
+    /*
+     * Suffixes of the run URL used by ClassicDisplayURLProvider in display-url-api for getArtifactsURL,
+     * getChangesURL and getTestsURL. Only used for handles created from a build number, which cannot call the
+     * default provider without loading the build record.
+     */
+    static final String CLASSIC_ARTIFACTS_SUFFIX = "artifact";
+
+    static final String CLASSIC_CHANGES_SUFFIX = "changes";
+
+    static final String CLASSIC_TESTS_SUFFIX = "testReport";
+
+    private final BlueOceanDisplayURLImpl provider;
+    private final Job<?, ?> job;
+    private final int number;
+    private final Run<?, ?> run;
+
+    /**
+     * The run URL, <code>null</code> if Blue Ocean cannot display the run
+     */
+    private String runURL;
+
+    private volatile boolean resolved;
+
+    RunURLs(@NonNull BlueOceanDisplayURLImpl provider, @NonNull Run<?, ?> run) {
+        this.provider = provider;
+        this.job = run.getParent();
+        this.number = run.getNumber();
+        this.run = run;
+    }
+
+    RunURLs(@NonNull BlueOceanDisplayURLImpl provider, @NonNull Job<?, ?> job, int number) {
+        this.provider = provider;
+        this.job = job;
+        this.number = number;
+        this.run = null;
+    }
+
+    @NonNull
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * @return the run, or <code>null</code> if this handle was created from a build number
+     */
+    @CheckForNull
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @NonNull
+    public String getRunURL() {
+        String url = resolve();
+        if (url != null) {
+            return url;
+        }
+        return run != null ? DisplayURLProvider.getDefault().getRunURL(run) : getClassicRunURL();
+    }
+
+    @NonNull
+    public String getArtifactsURL() {
+        String url = resolve();
+        if (url != null) {
+            return url + provider.templates().getArtifactsSuffix();
+        }
+        return run != null ? DisplayURLProvider.getDefault().getArtifactsURL(run) : getClassicRunURL() + CLASSIC_ARTIFACTS_SUFFIX;
+    }
+
+    @NonNull
+    public String getChangesURL() {
+        String url = resolve();
+        if (url != null) {
+            return url + provider.templates().getChangesSuffix();
+        }
+        return run != null ? DisplayURLProvider.getDefault().getChangesURL(run) : getClassicRunURL() + CLASSIC_CHANGES_SUFFIX;
+    }
+
+    @NonNull
+    public String getTestsURL() {
+        String url = resolve();
+        if (url != null) {
+            return url + provider.templates().getTestsSuffix();
+        }
+        return run != null ? DisplayURLProvider.getDefault().getTestsURL(run) : getClassicRunURL() + CLASSIC_TESTS_SUFFIX;
+    }
+
+    @Override
+    public String toString() {
+        return getRunURL();
+    }
+
+    private String resolve() {
+        if (!resolved) {
+            runURL = run != null ? provider.getRunURL(run, null) : provider.getRunURL(job, number);
+            resolved = true;
+        }
+        return runURL;
+    }
+
+    /**
+     * Same as the classic run URL, built from the job URL as the build is not loaded
+     */
+    private String getClassicRunURL() {
+        return DisplayURLProvider.getDefault().getJobURL(job) + number + '/';
+    }
+}
@@ -0,0 +1,117 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Job;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jenkins.branch.MultiBranchProject;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Checks a sample of the paths served by {@link BlueOceanDisplayURLImpl} against the paths computed without any cache,
+ * as the provider originally did. Checks run on {@link AsyncExecutor}, mismatches are counted by
+ * {@link BlueOceanDisplayURLMetrics}, reported by {@link BlueOceanURLMismatchMonitor} and dropped from the caches.
+ * Checks are skipped when the caches were invalidated since the paths were served, e.g. by a rename, as the served
+ * paths may then legitimately differ from the current ones.
+ */
+final class ShadowVerifier {
+
+    private static final Logger LOGGER = Logger.getLogger(ShadowVerifier.class.getName());
+
+    private final BlueOceanDisplayURLImpl provider;
+
+    /**
+     * Fraction of lookups to check, negative until read from {@link BlueOceanDisplayURLConfiguration}
+     */
+    private volatile double rate = -1;
+
+    private volatile String lastMismatch;
+
+    ShadowVerifier(@NonNull BlueOceanDisplayURLImpl provider) {
+        this.provider = provider;
+    }
+
+    void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * @return a description of the last mismatch, or <code>null</code> if there was none
+     */
+    @CheckForNull
+    String getLastMismatch() {
+        return lastMismatch;
+    }
+
+    /**
+     * Checks the paths of a job off the calling thread, if the job is part of the sample
+     */
+    void sample(@NonNull Job<?, ?> job, @NonNull JobURLCache.Entry urls) {
+        double rate = this.rate;
+        if (rate < 0) {
+            rate = BlueOceanDisplayURLConfiguration.get().getVerificationRate();
+            this.rate = rate;
+        }
+        if (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate) {
+            return;
+        }
+        URLTemplates templates = provider.templates();
+        long generation = provider.cacheGeneration();
+        try {
+            AsyncExecutor.get().execute(() -> verify(job, urls, templates, generation));
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.FINE, "Skipped verifying the URLs of " + job.getFullName(), e);
+        }
+    }
+
+    /**
+     * @param generation of the provider caches when the paths were served
+     */
+    void verify(@NonNull Job<?, ?> job, @NonNull JobURLCache.Entry urls, @NonNull URLTemplates templates, long generation) {
+        if (isStale(job, generation)) {
+            return;
+        }
+        JobURLCache.Entry expected;
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            expected = BlueOceanDisplayURLImpl.computeUncached(job, templates);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, "Failed to verify the URLs of " + job.getFullName(), e);
+            return;
+        }
+        if (isStale(job, generation)) {
+            // invalidated while computing
+            return;
+        }
+        boolean match = expected != null
+                && expected.getJobPath().equals(urls.getJobPath())
+                && expected.getRunPath().equals(urls.getRunPath());
+        BlueOceanDisplayURLMetrics.verified(match);
+        if (!match) {
+            lastMismatch = job.getFullName() + ": served " + urls.getRunPath() + ", expected "
+                    + (expected == null ? "the classic URL" : expected.getRunPath());
+            LOGGER.log(Level.WARNING, "Blue Ocean URL mismatch for {0}", lastMismatch);
+            drop(job);
+        }
+    }
+
+    /**
+     * Drops every cached value the paths of a job are built from, so that the next lookup does not rebuild them
+     */
+    private void drop(@NonNull Job<?, ?> job) {
+        provider.invalidateFolders();
+        if (job.getParent() instanceof MultiBranchProject) {
+            // shared path of the branches
+            provider.invalidate(((MultiBranchProject<?, ?>) job.getParent()).getFullName(), false);
+        }
+        provider.invalidate(job.getFullName(), false);
+    }
+
+    private boolean isStale(Job<?, ?> job, long generation) {
+        return provider.cacheGeneration() != generation || provider.isInvalidationPending(job.getFullName());
+    }
+}
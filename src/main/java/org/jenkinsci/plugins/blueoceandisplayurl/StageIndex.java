@@ -0,0 +1,143 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Run;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.workflow.actions.LabelAction;
+import org.jenkinsci.plugins.workflow.actions.StageAction;
+import org.jenkinsci.plugins.workflow.actions.ThreadNameAction;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.graph.BlockStartNode;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.graph.StepStartNode;
+import org.jenkinsci.plugins.workflow.graphanalysis.DepthFirstScanner;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Node ids of the stages of recent pipeline runs, by stage name, recorded by {@link BlueOceanGraphListener}
+ * as the flow graph grows. Stages that were not recorded, e.g. because the run started before a restart,
+ * are found by scanning the flow graph once per run.
+ */
+final class StageIndex {
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static int maxRuns = SystemProperties.getInteger(StageIndex.class.getName() + ".maxRuns", 1000);
+
+    private static final String STAGE_STEP = "stage";
+
+    /**
+     * Stage node ids by stage name, keyed by {@link Run#getExternalizableId()}, least recently used first
+     */
+    private final Map<String, Stages> runs = Collections.synchronizedMap(
+            new LinkedHashMap<String, Stages>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Stages> eldest) {
+                    return size() > maxRuns;
+                }
+            });
+
+    /**
+     * Records a node if it starts a stage
+     */
+    void record(@NonNull Run<?, ?> run, @NonNull FlowNode node) {
+        String name = getStageName(node);
+        if (name != null) {
+            stages(run).put(name, node.getId());
+        }
+    }
+
+    /**
+     * @return the id of the first node starting a stage named <code>name</code>, or <code>null</code> if there is none yet
+     */
+    @CheckForNull
+    String getStageId(@NonNull WorkflowRun run, @NonNull String name) {
+        Stages stages = stages(run);
+        String id = stages.ids.get(name);
+        if (id == null && !stages.scanned) {
+            scan(run, stages);
+            id = stages.ids.get(name);
+        }
+        return id;
+    }
+
+    /**
+     * @return the id of the innermost stage enclosing <code>node</code>, or <code>null</code> if it is not in a stage
+     */
+    @CheckForNull
+    static String getEnclosingStageId(@NonNull FlowNode node) {
+        if (getStageName(node) != null) {
+            return node.getId();
+        }
+        for (BlockStartNode block : node.iterateEnclosingBlocks()) {
+            if (getStageName(block) != null) {
+                return block.getId();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the name of the stage started by <code>node</code>, or <code>null</code> if it does not start one
+     */
+    @CheckForNull
+    static String getStageName(@NonNull FlowNode node) {
+        if (node instanceof StepStartNode && isStageStep((StepStartNode) node)) {
+            LabelAction label = node.getPersistentAction(LabelAction.class);
+            // parallel branches are labelled too
+            if (label != null && node.getPersistentAction(ThreadNameAction.class) == null) {
+                return label.getDisplayName();
+            }
+        }
+        StageAction stage = node.getPersistentAction(StageAction.class);
+        return stage == null ? null : stage.getStageName();
+    }
+
+    /**
+     * Like Blue Ocean, only labels of the <code>stage</code> step start stages, not those of other block steps.
+     * Matched by function name as <code>pipeline-stage-step</code> is not a dependency.
+     */
+    private static boolean isStageStep(@NonNull StepStartNode node) {
+        StepDescriptor descriptor = node.getDescriptor();
+        return descriptor != null && STAGE_STEP.equals(descriptor.getFunctionName());
+    }
+
+    @NonNull
+    private Stages stages(@NonNull Run<?, ?> run) {
+        return runs.computeIfAbsent(run.getExternalizableId(), id -> new Stages());
+    }
+
+    /**
+     * Walks the whole flow graph of a run, for stages that were not recorded as they started
+     */
+    private static void scan(@NonNull WorkflowRun run, @NonNull Stages stages) {
+        FlowExecution execution = run.getExecution();
+        if (execution != null) {
+            for (FlowNode node : new DepthFirstScanner().filteredNodes(execution.getCurrentHeads(), n -> getStageName(n) != null)) {
+                stages.put(getStageName(node), node.getId());
+            }
+        }
+        stages.scanned = true;
+    }
+
+    private static final class Stages {
+        private final ConcurrentMap<String, String> ids = new ConcurrentHashMap<>();
+
+        private volatile boolean scanned;
+
+        /**
+         * Keeps the first stage of a name, node ids grow as the flow graph does
+         */
+        void put(@NonNull String name, @NonNull String id) {
+            ids.merge(name, id, (a, b) -> a.length() < b.length() || a.length() == b.length() && a.compareTo(b) <= 0 ? a : b);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.ExtensionList;
+import hudson.ExtensionListListener;
+
+/**
+ * Per-class cache of the {@link BlueOceanSupportedType} answers.
+ */
+final class SupportedTypes {
+
+    private volatile Lookup lookup;
+
+    boolean isSupportedJob(@NonNull Class<?> jobClass) {
+        return lookup().jobs.get(jobClass);
+    }
+
+    boolean isSupportedRun(@NonNull Class<?> runClass) {
+        return lookup().runs.get(runClass);
+    }
+
+    private Lookup lookup() {
+        Lookup l = lookup;
+        if (l == null) {
+            synchronized (this) {
+                l = lookup;
+                if (l == null) {
+                    ExtensionList<BlueOceanSupportedType> types = BlueOceanSupportedType.all();
+                    types.addListener(new ExtensionListListener() {
+                        @Override
+                        public void onChange() {
+                            lookup = new Lookup(types);
+                        }
+                    });
+                    l = lookup = new Lookup(types);
+                }
+            }
+        }
+        return l;
+    }
+
+    private static final class Lookup {
+        private final ClassValue<Boolean> jobs;
+        private final ClassValue<Boolean> runs;
+
+        Lookup(ExtensionList<BlueOceanSupportedType> types) {
+            jobs = new ClassValue<Boolean>() {
+                @Override
+                protected Boolean computeValue(Class<?> type) {
+                    for (BlueOceanSupportedType t : types) {
+                        if (t.isSupportedJob(type)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            };
+            runs = new ClassValue<Boolean>() {
+                @Override
+                protected Boolean computeValue(Class<?> type) {
+                    for (BlueOceanSupportedType t : types) {
+                        if (t.isSupportedRun(type)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
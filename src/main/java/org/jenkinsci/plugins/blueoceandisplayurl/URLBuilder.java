@@ -0,0 +1,66 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Builds Blue Ocean URLs into a single pre-sized buffer, so that a URL costs one final string.
+ */
+final class URLBuilder {
+
+    /**
+     * Room for a run number
+     */
+    private static final int NUMBER_LENGTH = 10;
+
+    private final StringBuilder buf;
+
+    URLBuilder(int capacity) {
+        this.buf = new StringBuilder(capacity);
+    }
+
+    @NonNull
+    URLBuilder append(@NonNull String s) {
+        buf.append(s);
+        return this;
+    }
+
+    @NonNull
+    URLBuilder appendNumber(int number) {
+        buf.append(number);
+        return this;
+    }
+
+    @NonNull
+    String build() {
+        return buf.toString();
+    }
+
+    /**
+     * @param root the Blue Ocean root
+     * @param runPath path of the run's job up to the run number
+     * @param number the run number
+     * @param afterNumber appended after the run number, usually '/'
+     * @param suffix appended after <code>afterNumber</code>, e.g. <code>artifacts</code>
+     * @return the run URL
+     */
+    @NonNull
+    static String runURL(@NonNull String root, @NonNull String runPath, int number, @NonNull String afterNumber, @CheckForNull String suffix) {
+        int capacity = root.length() + runPath.length() + NUMBER_LENGTH + afterNumber.length() + (suffix == null ? 0 : suffix.length());
+        URLBuilder builder = new URLBuilder(capacity).append(root).append(runPath).appendNumber(number).append(afterNumber);
+        if (suffix != null) {
+            builder.append(suffix);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param root the Blue Ocean root
+     * @param jobPath path of the job
+     * @return the job URL
+     */
+    @NonNull
+    static String jobURL(@NonNull String root, @NonNull String jobPath) {
+        return new URLBuilder(root.length() + jobPath.length()).append(root).append(jobPath).build();
+    }
+}
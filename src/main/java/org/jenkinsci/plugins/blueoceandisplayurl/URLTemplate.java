@@ -0,0 +1,122 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A URL template such as <code>organizations/${organization}/${pipeline}/</code>, split once into literal parts and
+ * variables, so that rendering only appends.
+ */
+final class URLTemplate {
+
+    /**
+     * Literal parts, one more than there are variables
+     */
+    private final String[] literals;
+
+    /**
+     * Index of each variable in the values passed to {@link #render}
+     */
+    private final int[] variables;
+
+    private final int length;
+
+    private URLTemplate(String[] literals, int[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.length = length;
+    }
+
+    /**
+     * @param template the template
+     * @param names the variables the template may use, each at most once, in the order their values are rendered in
+     * @return the compiled template
+     * @throws IllegalArgumentException if the template is malformed or uses an unknown variable
+     */
+    @NonNull
+    static URLTemplate compile(@NonNull String template, @NonNull String... names) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> variables = new ArrayList<>();
+        int start = 0;
+        for (int open = template.indexOf("${"); open >= 0; open = template.indexOf("${", start)) {
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed variable in " + template);
+            }
+            String name = template.substring(open + 2, close);
+            int index = Arrays.asList(names).indexOf(name);
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown variable ${" + name + "} in " + template
+                        + ", expected one of " + Arrays.toString(names));
+            }
+            if (variables.contains(index)) {
+                throw new IllegalArgumentException("Variable ${" + name + "} is used more than once in " + template);
+            }
+            literals.add(template.substring(start, open));
+            variables.add(index);
+            start = close + 1;
+        }
+        literals.add(template.substring(start));
+        return new URLTemplate(literals.toArray(new String[0]), variables.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * @return whether the template uses the variable at <code>index</code> of the names it was compiled with
+     */
+    boolean uses(int index) {
+        for (int variable : variables) {
+            if (variable == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the length of the literal parts, to size buffers with
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Appends the template with its variables replaced by already encoded <code>values</code>
+     */
+    @NonNull
+    URLBuilder render(@NonNull URLBuilder builder, @NonNull String... values) {
+        builder.append(literals[0]);
+        for (int i = 0; i < variables.length; i++) {
+            builder.append(values[variables[i]]).append(literals[i + 1]);
+        }
+        return builder;
+    }
+
+    /**
+     * @param groups regular expressions matching the value of each variable
+     * @return a regular expression matching rendered templates
+     */
+    @NonNull
+    String toRegex(@NonNull String... groups) {
+        StringBuilder regex = new StringBuilder();
+        appendLiteral(regex, literals[0]);
+        for (int i = 0; i < variables.length; i++) {
+            regex.append(groups[variables[i]]);
+            appendLiteral(regex, literals[i + 1]);
+        }
+        return regex.toString();
+    }
+
+    private static void appendLiteral(StringBuilder regex, String literal) {
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal));
+        }
+    }
+}
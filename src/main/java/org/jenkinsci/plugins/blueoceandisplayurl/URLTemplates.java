@@ -0,0 +1,159 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * The URL shapes of {@link BlueOceanDisplayURLConfiguration}, compiled once per save.
+ * <p>
+ * A run URL is the Blue Ocean root, the job template, the run template up to <code>${number}</code>, the number,
+ * the rest of the run template and an optional suffix such as <code>artifacts</code>.
+ */
+final class URLTemplates {
+
+    static final String DEFAULT_ROOT_PATH = "blue/";
+
+    static final String DEFAULT_JOB_TEMPLATE = "organizations/${organization}/${pipeline}/";
+
+    static final String DEFAULT_RUN_TEMPLATE = "detail/${branch}/${number}/";
+
+    static final String DEFAULT_ARTIFACTS_SUFFIX = "artifacts";
+
+    static final String DEFAULT_CHANGES_SUFFIX = "changes";
+
+    static final String DEFAULT_TESTS_SUFFIX = "tests";
+
+    static final String[] JOB_VARIABLES = {"organization", "pipeline"};
+
+    static final String[] RUN_VARIABLES = {"branch"};
+
+    private static final String NUMBER = "${number}";
+
+    static final URLTemplates DEFAULT = compile(DEFAULT_ROOT_PATH, DEFAULT_JOB_TEMPLATE, DEFAULT_RUN_TEMPLATE,
+            DEFAULT_ARTIFACTS_SUFFIX, DEFAULT_CHANGES_SUFFIX, DEFAULT_TESTS_SUFFIX);
+
+    private final String rootPath;
+    private final URLTemplate job;
+    private final URLTemplate run;
+    private final String afterNumber;
+    private final String artifactsSuffix;
+    private final String changesSuffix;
+    private final String testsSuffix;
+    private final String source;
+    private final BlueOceanURLParser parser;
+
+    private URLTemplates(String rootPath, String jobTemplate, String runTemplate,
+                         String artifactsSuffix, String changesSuffix, String testsSuffix) {
+        this.rootPath = rootPath;
+        this.job = checkUses(URLTemplate.compile(jobTemplate, JOB_VARIABLES), jobTemplate, JOB_VARIABLES);
+        int number = runTemplate.indexOf(NUMBER);
+        if (number < 0) {
+            throw new IllegalArgumentException("Run template " + runTemplate + " does not use " + NUMBER);
+        }
+        this.run = checkUses(URLTemplate.compile(runTemplate.substring(0, number), RUN_VARIABLES), runTemplate, RUN_VARIABLES);
+        this.afterNumber = runTemplate.substring(number + NUMBER.length());
+        if (afterNumber.contains("${")) {
+            throw new IllegalArgumentException("Run template " + runTemplate + " may not use variables after " + NUMBER);
+        }
+        this.artifactsSuffix = artifactsSuffix;
+        this.changesSuffix = changesSuffix;
+        this.testsSuffix = testsSuffix;
+        this.source = String.join("\n", rootPath, jobTemplate, runTemplate, artifactsSuffix, changesSuffix, testsSuffix);
+        this.parser = new BlueOceanURLParser(this, rootPath, jobTemplate, runTemplate.substring(0, number));
+    }
+
+    /**
+     * @throws IllegalArgumentException if a template is malformed or misses a variable
+     */
+    @NonNull
+    static URLTemplates compile(@NonNull String rootPath, @NonNull String jobTemplate, @NonNull String runTemplate,
+                                @NonNull String artifactsSuffix, @NonNull String changesSuffix, @NonNull String testsSuffix) {
+        return new URLTemplates(rootPath, jobTemplate, runTemplate, artifactsSuffix, changesSuffix, testsSuffix);
+    }
+
+    private static URLTemplate checkUses(URLTemplate template, String source, String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            if (!template.uses(i)) {
+                throw new IllegalArgumentException("Template " + source + " does not use ${" + names[i] + "}");
+            }
+        }
+        return template;
+    }
+
+    /**
+     * @return appended to the Jenkins root URL to get the Blue Ocean root
+     */
+    @NonNull
+    String getRootPath() {
+        return rootPath;
+    }
+
+    @NonNull
+    String getArtifactsSuffix() {
+        return artifactsSuffix;
+    }
+
+    @NonNull
+    String getChangesSuffix() {
+        return changesSuffix;
+    }
+
+    @NonNull
+    String getTestsSuffix() {
+        return testsSuffix;
+    }
+
+    @NonNull
+    BlueOceanURLParser getParser() {
+        return parser;
+    }
+
+    /**
+     * @param organization encoded organization name
+     * @param path encoded path relative to the organization base group
+     * @return the job path, relative to the Blue Ocean root
+     */
+    @NonNull
+    String jobPath(@NonNull String organization, @NonNull String path) {
+        return job.render(new URLBuilder(job.length() + organization.length() + path.length()), organization, path).build();
+    }
+
+    /**
+     * @param jobPath the job path
+     * @param name encoded job or branch name
+     * @return the path of the runs of the job up to the run number, relative to the Blue Ocean root
+     */
+    @NonNull
+    String runPath(@NonNull String jobPath, @NonNull String name) {
+        return run.render(new URLBuilder(jobPath.length() + run.length() + name.length()).append(jobPath), name).build();
+    }
+
+    /**
+     * @param root the Blue Ocean root
+     * @param runPath the path of the runs of the job
+     * @param number the run number
+     * @param suffix appended after the run number, e.g. {@link #getArtifactsSuffix()}
+     * @return the run URL
+     */
+    @NonNull
+    String runURL(@NonNull String root, @NonNull String runPath, int number, @CheckForNull String suffix) {
+        return URLBuilder.runURL(root, runPath, number, afterNumber, suffix);
+    }
+
+    /**
+     * @return changes whenever the rendered paths may change, to tell paths rendered by other templates apart
+     */
+    int fingerprint() {
+        return source.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof URLTemplates && source.equals(((URLTemplates) o).source);
+    }
+
+    @Override
+    public int hashCode() {
+        return source.hashCode();
+    }
+}
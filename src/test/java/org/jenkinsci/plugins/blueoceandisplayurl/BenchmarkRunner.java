@@ -0,0 +1,37 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import jenkins.benchmark.jmh.BenchmarkFinder;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the JMH benchmarks of this plugin. Not picked up by the regular test run, use <code>mvn test -P benchmark</code>.
+ */
+public class BenchmarkRunner {
+
+    @Test
+    public void runJmhBenchmarks() throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .warmupIterations(2)
+                .measurementIterations(5)
+                .threads(2)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-report.json");
+
+        new BenchmarkFinder(getClass()).findBenchmarks(options);
+        new Runner(options.build()).run();
+    }
+}
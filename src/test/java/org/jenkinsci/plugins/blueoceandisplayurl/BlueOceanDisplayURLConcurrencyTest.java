@@ -0,0 +1,224 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import hudson.ExtensionList;
+import hudson.model.FreeStyleProject;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Run;
+import hudson.model.TopLevelItem;
+import io.jenkins.blueocean.rest.model.BlueOrganization;
+import io.jenkins.blueocean.service.embedded.OrganizationFactoryImpl;
+import io.jenkins.blueocean.service.embedded.rest.OrganizationImpl;
+import jenkins.model.Jenkins;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+import org.jvnet.hudson.test.TestExtension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Hammers {@link BlueOceanDisplayURLImpl} from many threads while jobs are renamed and moved between folders and
+ * organizations.
+ */
+public class BlueOceanDisplayURLConcurrencyTest {
+
+    private static final int PROJECTS = 16;
+
+    private static final int MUTATIONS = 200;
+
+    private static final int READS = 500;
+
+    private static final Pattern JOB_URL = Pattern.compile("http://[^/]+/jenkins/blue/organizations/(jenkins|TestOrg)/[^/]+/");
+
+    private static final Pattern RUN_URL = Pattern.compile("http://[^/]+/jenkins/blue/organizations/(jenkins|TestOrg)/[^/]+/detail/[^/]+/[0-9]+/");
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private BlueOceanDisplayURLImpl displayURL;
+
+    private MockFolder orgFolder;
+
+    private final List<FreeStyleProject> projects = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        displayURL = ExtensionList.lookupSingleton(BlueOceanDisplayURLImpl.class);
+        orgFolder = j.createFolder("TestOrgFolderName");
+        for (int i = 0; i < PROJECTS; i++) {
+            FreeStyleProject p = j.createFreeStyleProject("p" + i);
+            j.buildAndAssertSuccess(p);
+            projects.add(p);
+        }
+    }
+
+    @Test
+    public void urlsStayFreshWhileItemsMove() throws Exception {
+        MockFolder folder = j.createFolder("folder");
+        MockFolder orgSubFolder = orgFolder.createProject(MockFolder.class, "sub");
+        List<ItemGroup<?>> destinations = List.of(j.jenkins, folder, orgFolder, orgSubFolder);
+
+        AtomicBoolean done = new AtomicBoolean();
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < threads(); t++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        for (FreeStyleProject p : projects) {
+                            check(JOB_URL, displayURL.getJobURL(p), failures);
+                            Run<?, ?> run = p.getLastBuild();
+                            if (run != null) {
+                                check(RUN_URL, displayURL.getRunURL(run), failures);
+                            }
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    failures.add(e.toString());
+                }
+            }, "url-reader-" + t);
+            reader.start();
+            readers.add(reader);
+        }
+
+        try {
+            Random random = new Random(42);
+            for (int i = 0; i < MUTATIONS; i++) {
+                FreeStyleProject p = projects.get(random.nextInt(PROJECTS));
+                if (random.nextBoolean()) {
+                    p.renameTo(p.getName().replaceFirst("-.*", "") + '-' + i);
+                } else {
+                    ItemGroup<?> destination = destinations.get(random.nextInt(destinations.size()));
+                    if (destination != p.getParent()) {
+                        if (destination instanceof MockFolder) {
+                            Items.move(p, (MockFolder) destination);
+                        } else {
+                            Items.move(p, j.jenkins);
+                        }
+                    }
+                }
+                // listeners ran synchronously, nothing stale may be served from now on
+                Assert.assertEquals(expectedJobURL(p), displayURL.getJobURL(p));
+                Assert.assertEquals(expectedJobURL(p) + "detail/" + p.getName() + "/1/", displayURL.getRunURL(p.getLastBuild()));
+            }
+        } finally {
+            done.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+
+        Assert.assertTrue(String.join("\n", failures), failures.isEmpty());
+        for (FreeStyleProject p : projects) {
+            Assert.assertEquals(expectedJobURL(p), displayURL.getJobURL(p));
+        }
+    }
+
+    /**
+     * Cold caches filled from many threads at once must serve the same URLs to all of them.
+     * Throughput is measured by {@link DisplayURLBenchmark}.
+     */
+    @Test
+    public void concurrentReadersAgree() throws Exception {
+        List<String> expected = new ArrayList<>();
+        for (FreeStyleProject p : projects) {
+            expected.add(expectedJobURL(p) + "detail/" + p.getName() + "/1/");
+            displayURL.invalidate(p.getFullName(), false);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads(); t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < READS; i++) {
+                        for (int n = 0; n < PROJECTS; n++) {
+                            String url = displayURL.getRunURL(projects.get(n).getLastBuild());
+                            if (!expected.get(n).equals(url)) {
+                                failures.add(url);
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    failures.add(e.toString());
+                }
+            }, "url-worker-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Assert.assertTrue(String.join("\n", failures), failures.isEmpty());
+    }
+
+    private static int threads() {
+        return Math.max(2, Runtime.getRuntime().availableProcessors());
+    }
+
+    private static void check(Pattern pattern, String url, Queue<String> failures) {
+        if (!pattern.matcher(url).matches()) {
+            failures.add(url);
+        }
+    }
+
+    private String expectedJobURL(TopLevelItem item) {
+        String fullName = item.getFullName();
+        String organization = "jenkins";
+        String orgPrefix = orgFolder.getFullName() + '/';
+        if (fullName.startsWith(orgPrefix)) {
+            organization = "TestOrg";
+            fullName = fullName.substring(orgPrefix.length());
+        }
+        return j.jenkins.getRootUrl() + "blue/organizations/" + organization + '/' + fullName.replace("/", "%2F") + '/';
+    }
+
+    @TestExtension
+    public static class TestOrganizationFactoryImpl extends OrganizationFactoryImpl {
+        private final OrganizationImpl jenkins = new OrganizationImpl("jenkins", Jenkins.get());
+        private final OrganizationImpl testOrg = new OrganizationImpl("TestOrg", Jenkins.get().getItem("/TestOrgFolderName", Jenkins.get(), MockFolder.class));
+
+        @Override
+        public OrganizationImpl get(String name) {
+            for (OrganizationImpl organization : List.of(jenkins, testOrg)) {
+                if (organization.getName().equals(name)) {
+                    return organization;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Collection<BlueOrganization> list() {
+            return List.of(jenkins, testOrg);
+        }
+
+        @Override
+        public OrganizationImpl of(ItemGroup group) {
+            if (group == jenkins.getGroup()) {
+                return jenkins;
+            }
+            if (group == testOrg.getGroup()) {
+                return testOrg;
+            }
+            return null;
+        }
+    }
+}
@@ -1,34 +1,60 @@
 package org.jenkinsci.plugins.blueoceandisplayurl;
 
 import com.cloudbees.hudson.plugins.folder.Folder;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.ExtensionList;
+import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
+import hudson.model.Item;
 import hudson.model.ItemGroup;
+import hudson.model.Items;
 import hudson.model.Project;
+import hudson.model.Run;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
 import io.jenkins.blueocean.rest.model.BlueOrganization;
 import io.jenkins.blueocean.service.embedded.OrganizationFactoryImpl;
 import io.jenkins.blueocean.service.embedded.rest.OrganizationImpl;
 import jenkins.branch.BranchSource;
 import jenkins.model.Jenkins;
+import jenkins.model.JenkinsLocationConfiguration;
 import jenkins.plugins.git.GitSCMSource;
 import jenkins.plugins.git.GitSampleRepoRule;
 import jenkins.plugins.git.traits.BranchDiscoveryTrait;
 import jenkins.scm.api.SCMSource;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.htmlunit.HttpMethod;
+import org.htmlunit.WebRequest;
+import org.htmlunit.html.HtmlForm;
 import org.jenkinsci.plugins.displayurlapi.DisplayURLProvider;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.cps.nodes.StepAtomNode;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.graphanalysis.DepthFirstScanner;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
 import org.jvnet.hudson.test.MockFolder;
 import org.jvnet.hudson.test.TestExtension;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -71,6 +97,224 @@ public class BlueOceanDisplayURLImplTest {
 
     }
 
+    @Test
+    public void testRootURLChange() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("abc");
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/abc/", getPath(displayURL.getJobURL(p)));
+
+        JenkinsLocationConfiguration.get().setUrl("https://ci.example.com/");
+        Assert.assertEquals("https://ci.example.com/blue/organizations/jenkins/abc/", displayURL.getJobURL(p));
+    }
+
+    @Test
+    public void testStoredJobURLs() throws Exception {
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "abc");
+        File file = new File(j.jenkins.getRootDir(), "stored-urls.log");
+
+        JobURLStore store = new JobURLStore(file);
+        store.put(p, URLTemplates.DEFAULT, new JobURLCache.Entry("organizations/jenkins/test%2Fabc/", "organizations/jenkins/test%2Fabc/detail/abc/"));
+        store.flush();
+        Assert.assertNull("not loaded yet", loadStore(file).get(p, URLTemplates.DEFAULT));
+
+        store.load();
+        store.put(p, URLTemplates.DEFAULT, new JobURLCache.Entry("organizations/jenkins/test%2Fabc/", "organizations/jenkins/test%2Fabc/detail/abc/"));
+        store.flush();
+        JobURLCache.Entry entry = loadStore(file).get(p, URLTemplates.DEFAULT);
+        Assert.assertNotNull(entry);
+        Assert.assertEquals("organizations/jenkins/test%2Fabc/detail/abc/", entry.getRunPath());
+
+        folder.setDescription("a longer configuration");
+        Assert.assertNull(loadStore(file).get(p, URLTemplates.DEFAULT));
+
+        FreeStyleProject sibling = j.createProject(FreeStyleProject.class, "test-sibling");
+        store.put(sibling, URLTemplates.DEFAULT, new JobURLCache.Entry("organizations/jenkins/test-sibling/", "organizations/jenkins/test-sibling/detail/test-sibling/"));
+        store.remove("test", true);
+        store.flush();
+        JobURLStore loaded = loadStore(file);
+        Assert.assertNull(loaded.get(p, URLTemplates.DEFAULT));
+        Assert.assertNotNull(loaded.get(sibling, URLTemplates.DEFAULT));
+    }
+
+    private static JobURLStore loadStore(File file) {
+        JobURLStore store = new JobURLStore(file);
+        store.load();
+        return store;
+    }
+
+    @Test
+    public void testStageURLs() throws Exception {
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        WorkflowJob p = j.createProject(WorkflowJob.class, "pipeline");
+        p.setDefinition(new CpsFlowDefinition("stage('Build') { echo 'build' }\nstage('Test') { echo 'test' }", true));
+        WorkflowRun b = j.buildAndAssertSuccess(p);
+        String runURL = getPath(provider.getRunURL(b));
+
+        String stageURL = getPath(provider.getStageURL(b, "Test"));
+        Assert.assertTrue(stageURL, stageURL.matches(Pattern.quote(runURL + "pipeline/") + "[0-9]+"));
+        Assert.assertEquals(runURL, getPath(provider.getStageURL(b, "Deploy")));
+
+        FlowNode step = new DepthFirstScanner().findFirstMatch(b.getExecution(), node -> node instanceof StepAtomNode);
+        Assert.assertEquals(stageURL + "#step-" + step.getId() + "-log-1", getPath(provider.getStepURL(b, step)));
+    }
+
+    @Test
+    public void testCustomTemplates() throws Exception {
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "abc");
+        FreeStyleBuild b = j.buildAndAssertSuccess(p);
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/1/", getPath(provider.getRunURL(b)));
+
+        BlueOceanDisplayURLConfiguration config = BlueOceanDisplayURLConfiguration.get();
+        config.setRootPath("ui");
+        config.setJobTemplate("org/${organization}/pipelines/${pipeline}/");
+        config.setRunTemplate("runs/${branch}/build-${number}/");
+        config.setTestsSuffix("test-results");
+        Assert.assertEquals("applied once saved", "/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/1/", getPath(provider.getRunURL(b)));
+        config.save();
+        Assert.assertEquals("ui/", config.getRootPath());
+
+        Assert.assertEquals("/jenkins/ui/org/jenkins/pipelines/test%2Fabc/", getPath(provider.getJobURL(p)));
+        Assert.assertEquals("/jenkins/ui/org/jenkins/pipelines/test%2Fabc/runs/abc/build-1/", getPath(provider.getRunURL(b)));
+        Assert.assertEquals("/jenkins/ui/org/jenkins/pipelines/test%2Fabc/runs/abc/build-1/test-results", getPath(provider.getTestsURL(b)));
+        Assert.assertEquals(b, provider.resolveRun(provider.getRunURL(b)));
+    }
+
+    @Test
+    public void testInvalidTemplatesRejected() throws Exception {
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        FreeStyleProject p = j.createFreeStyleProject("abc");
+        JenkinsRule.WebClient wc = j.createWebClient();
+        wc.setThrowExceptionOnFailingStatusCode(false);
+
+        HtmlForm form = wc.goTo("configure").getFormByName("config");
+        form.getInputByName("_.runTemplate").setValue("detail/${branch}/");
+        Assert.assertEquals(400, j.submit(form).getWebResponse().getStatusCode());
+        Assert.assertEquals(URLTemplates.DEFAULT_RUN_TEMPLATE, BlueOceanDisplayURLConfiguration.get().getRunTemplate());
+
+        form = wc.goTo("configure").getFormByName("config");
+        form.getInputByName("_.jobTemplate").setValue("organizations/${organization}/");
+        Assert.assertEquals(400, j.submit(form).getWebResponse().getStatusCode());
+        Assert.assertEquals(URLTemplates.DEFAULT_JOB_TEMPLATE, BlueOceanDisplayURLConfiguration.get().getJobTemplate());
+
+        form = wc.goTo("configure").getFormByName("config");
+        form.getInputByName("_.jobTemplate").setValue("org/${organization}/${pipeline}/");
+        j.submit(form);
+        Assert.assertEquals("/jenkins/blue/org/jenkins/abc/", getPath(provider.getJobURL(p)));
+    }
+
+    @Test
+    public void testShadowVerification() throws Exception {
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "abc");
+        provider.flushInvalidations();
+        BlueOceanDisplayURLMetrics metrics = BlueOceanDisplayURLMetrics.INSTANCE;
+        long verifications = metrics.getVerifications();
+        long mismatches = metrics.getVerificationMismatches();
+        ShadowVerifier verifier = new ShadowVerifier(provider);
+        JobURLCache.Entry served = BlueOceanDisplayURLImpl.computeUncached(p, URLTemplates.DEFAULT);
+        JobURLCache.Entry wrong = new JobURLCache.Entry("organizations/jenkins/wrong/", "organizations/jenkins/wrong/detail/wrong/");
+
+        verifier.verify(p, served, URLTemplates.DEFAULT, provider.cacheGeneration());
+        Assert.assertEquals(verifications + 1, metrics.getVerifications());
+        Assert.assertEquals(mismatches, metrics.getVerificationMismatches());
+        Assert.assertNull(verifier.getLastMismatch());
+
+        // served before a rename, not a mismatch
+        long generation = provider.cacheGeneration();
+        p.renameTo("def");
+        provider.flushInvalidations();
+        verifier.verify(p, served, URLTemplates.DEFAULT, generation);
+        Assert.assertEquals(verifications + 1, metrics.getVerifications());
+
+        verifier.verify(p, wrong, URLTemplates.DEFAULT, provider.cacheGeneration());
+        Assert.assertEquals(verifications + 2, metrics.getVerifications());
+        Assert.assertEquals(mismatches + 1, metrics.getVerificationMismatches());
+        Assert.assertTrue(verifier.getLastMismatch(), verifier.getLastMismatch().startsWith("test/def: served organizations/jenkins/wrong/"));
+
+        // the folder becomes an organization without any item event, cached lookups are stale
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fdef/", getPath(provider.getJobURL(p)));
+        JobURLCache.Entry stale = BlueOceanDisplayURLImpl.computeUncached(p, URLTemplates.DEFAULT);
+        MovableOrganizationFactory.group = folder;
+        try {
+            Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fdef/", getPath(provider.getJobURL(p)));
+            verifier.verify(p, stale, URLTemplates.DEFAULT, provider.cacheGeneration());
+            Assert.assertEquals(mismatches + 2, metrics.getVerificationMismatches());
+            Assert.assertEquals("/jenkins/blue/organizations/TestOrg/def/", getPath(provider.getJobURL(p)));
+        } finally {
+            MovableOrganizationFactory.group = null;
+        }
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "abc");
+        FreeStyleProject q = j.createFreeStyleProject("def");
+        provider.flushInvalidations();
+        provider.invalidate("test", true);
+        provider.invalidate("def", false);
+
+        Assert.assertTrue(BlueOceanURLWarmUp.warmUp(provider, List.of(p, q)));
+        BlueOceanDisplayURLMetrics metrics = BlueOceanDisplayURLMetrics.INSTANCE;
+        boolean enabled = metrics.isEnabled();
+        try {
+            metrics.setEnabled(true);
+            metrics.reset();
+            Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/", getPath(provider.getJobURL(p)));
+            Assert.assertEquals("/jenkins/blue/organizations/jenkins/def/", getPath(provider.getJobURL(q)));
+            Assert.assertEquals(0L, (long) metrics.getCacheMisses().get("job"));
+            Assert.assertTrue(metrics.getCacheHits().get("job") >= 2);
+        } finally {
+            metrics.setEnabled(enabled);
+            metrics.reset();
+        }
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "abc");
+        FreeStyleBuild b = j.buildAndAssertSuccess(p);
+        ((BlueOceanDisplayURLImpl) displayURL).flushInvalidations();
+        BlueOceanDisplayURLMetrics metrics = BlueOceanDisplayURLMetrics.INSTANCE;
+        boolean enabled = metrics.isEnabled();
+        try {
+            metrics.setEnabled(true);
+            metrics.reset();
+            displayURL.getRunURL(b);
+            displayURL.getRunURL(b);
+            Assert.assertTrue(metrics.getInvocations().get("run") >= 2);
+            Assert.assertTrue(metrics.getCacheHits().get("job") >= 1);
+            Assert.assertTrue(metrics.getLatencyHistogram().values().stream().mapToLong(Long::longValue).sum() >= 2);
+
+            metrics.setEnabled(false);
+            Map<String, Long> invocations = metrics.getInvocations();
+            Map<String, Long> hits = metrics.getCacheHits();
+            displayURL.getRunURL(b);
+            displayURL.getJobURL(p);
+            Assert.assertEquals(invocations, metrics.getInvocations());
+            Assert.assertEquals(hits, metrics.getCacheHits());
+        } finally {
+            metrics.setEnabled(enabled);
+            metrics.reset();
+        }
+    }
+
+    @Test
+    public void testSupportedTypes() throws Exception {
+        SupportedTypes types = new SupportedTypes();
+        Assert.assertTrue(types.isSupportedJob(FreeStyleProject.class));
+        Assert.assertTrue(types.isSupportedRun(WorkflowRun.class));
+        Assert.assertFalse(types.isSupportedJob(MockFolder.class));
+        // declared by CustomSupportedType
+        Assert.assertTrue(types.isSupportedJob(CustomJob.class));
+        Assert.assertFalse(types.isSupportedRun(CustomJob.class));
+    }
+
     @Test
     public void testProjectURL_CustomOrganization() throws Exception {
         FreeStyleProject p = orgFolder.createProject(FreeStyleProject.class, "abc");
@@ -102,6 +346,287 @@ public class BlueOceanDisplayURLImplTest {
         j.waitUntilNoActivity();
     }
 
+    @Test
+    public void testRenamedProjectURL() throws Exception {
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "abc");
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/", getPath(displayURL.getJobURL(p)));
+
+        p.renameTo("def");
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fdef/", getPath(displayURL.getJobURL(p)));
+
+        folder.renameTo("other");
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/other%2Fdef/", getPath(displayURL.getJobURL(p)));
+    }
+
+    @Test
+    public void testMovedProjectURL() throws Exception {
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = j.createFreeStyleProject("abc");
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/abc/", getPath(displayURL.getJobURL(p)));
+
+        p = Items.move(p, folder);
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/", getPath(displayURL.getJobURL(p)));
+
+        p.scheduleBuild2(0).waitForStart();
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/1/", getPath(displayURL.getRunURL(p.getLastBuild())));
+        j.waitUntilNoActivity();
+    }
+
+    @Test
+    public void testMovedFolderURL() throws Exception {
+        MockFolder a = j.createFolder("a");
+        MockFolder b = a.createProject(MockFolder.class, "b");
+        MockFolder c = b.createProject(MockFolder.class, "c");
+        FreeStyleProject p = c.createProject(FreeStyleProject.class, "abc");
+        MockFolder other = j.createFolder("other");
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/a%2Fb%2Fc%2Fabc/", getPath(displayURL.getJobURL(p)));
+
+        Items.move(b, other);
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/other%2Fb%2Fc%2Fabc/", getPath(displayURL.getJobURL(p)));
+    }
+
+    @Test
+    public void testCoalescedInvalidation() throws Exception {
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        MockFolder folder = j.createFolder("test");
+        List<FreeStyleProject> projects = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            projects.add(folder.createProject(FreeStyleProject.class, "p" + i));
+        }
+        for (FreeStyleProject p : projects) {
+            provider.getJobURL(p);
+        }
+
+        provider.flushInvalidations();
+
+        long delay = InvalidationQueue.delayMillis;
+        InvalidationQueue.delayMillis = TimeUnit.HOURS.toMillis(1);
+        try {
+            folder.renameTo("renamed");
+            // served from the uncached computation until the batch is applied
+            Assert.assertTrue(provider.isInvalidationPending("test/p7"));
+            Assert.assertTrue(provider.isInvalidationPending("renamed/p7"));
+            Assert.assertEquals("/jenkins/blue/organizations/jenkins/renamed%2Fp7/", getPath(provider.getJobURL(projects.get(7))));
+        } finally {
+            InvalidationQueue.delayMillis = delay;
+        }
+
+        provider.flushInvalidations();
+        Assert.assertFalse(provider.isInvalidationPending("renamed/p7"));
+        for (int i = 0; i < projects.size(); i++) {
+            String url = provider.getJobURL(projects.get(i));
+            Assert.assertEquals("/jenkins/blue/organizations/jenkins/renamed%2Fp" + i + "/", getPath(url));
+            Assert.assertEquals(projects.get(i), provider.resolveJob(url));
+        }
+    }
+
+    @Test
+    public void testRunURLs() throws Exception {
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject abc = folder.createProject(FreeStyleProject.class, "abc");
+        FreeStyleProject def = j.createFreeStyleProject("def");
+        FreeStyleBuild abc1 = j.buildAndAssertSuccess(abc);
+        FreeStyleBuild abc2 = j.buildAndAssertSuccess(abc);
+        FreeStyleBuild def1 = j.buildAndAssertSuccess(def);
+
+        Map<Run<?, ?>, String> urls = ((BlueOceanDisplayURLImpl) displayURL).getRunURLs(List.of(abc1, def1, abc2));
+        Assert.assertEquals(List.of(abc1, def1, abc2), new ArrayList<>(urls.keySet()));
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/1/", getPath(urls.get(abc1)));
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/2/", getPath(urls.get(abc2)));
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/def/detail/def/1/", getPath(urls.get(def1)));
+    }
+
+    @Test
+    public void testLazyRunURLs() throws Exception {
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "abc");
+        RunURLs urls = ((BlueOceanDisplayURLImpl) displayURL).getURLs(j.buildAndAssertSuccess(p));
+
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/1/tests", getPath(urls.getTestsURL()));
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/1/", getPath(urls.getRunURL()));
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/1/artifacts", getPath(urls.getArtifactsURL()));
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/1/changes", getPath(urls.getChangesURL()));
+    }
+
+    @Test
+    public void testURLsByNumber() throws Exception {
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "abc");
+
+        RunURLs urls = provider.getURLs("test/abc", 42);
+        Assert.assertNull(urls.getRun());
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/42/", getPath(urls.getRunURL()));
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/42/changes", getPath(urls.getChangesURL()));
+
+        FreeStyleBuild b = j.buildAndAssertSuccess(p);
+        Assert.assertEquals(provider.getTestsURL(b), provider.getURLs(p, b.getNumber()).getTestsURL());
+        Assert.assertNull(provider.getURLs("missing", 1));
+    }
+
+    @Test
+    public void testURLsByNumber_NoOrganization() throws Exception {
+        // outside of the only organization
+        FreeStyleProject p = j.createFreeStyleProject("abc");
+        FreeStyleBuild b = j.buildAndAssertSuccess(p);
+        DisplayURLProvider classic = DisplayURLProvider.getDefault();
+
+        RunURLs urls = ((BlueOceanDisplayURLImpl) displayURL).getURLs(p, b.getNumber());
+        Assert.assertNull(urls.getRun());
+        Assert.assertEquals(classic.getRunURL(b), urls.getRunURL());
+        Assert.assertEquals(classic.getArtifactsURL(b), urls.getArtifactsURL());
+        Assert.assertEquals(classic.getChangesURL(b), urls.getChangesURL());
+        Assert.assertEquals(classic.getTestsURL(b), urls.getTestsURL());
+    }
+
+    @Test
+    public void testRunURLAsync() throws Exception {
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "abc");
+        FreeStyleBuild b = j.buildAndAssertSuccess(p);
+        provider.flushInvalidations();
+
+        // resolved on the executor, then from the cache
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/1/", getPath(provider.getRunURLAsync(b).get()));
+        Assert.assertTrue(provider.getRunURLAsync(b).isDone());
+        Assert.assertEquals(provider.getRunURL(b), provider.getRunURLAsync(b).get());
+
+        // the cached entry is not served while the rename is queued
+        long delay = InvalidationQueue.delayMillis;
+        InvalidationQueue.delayMillis = TimeUnit.HOURS.toMillis(1);
+        try {
+            p.renameTo("def");
+            Assert.assertTrue(provider.isInvalidationPending("test/def"));
+            Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fdef/detail/def/1/", getPath(provider.getRunURLAsync(b).get()));
+        } finally {
+            InvalidationQueue.delayMillis = delay;
+            provider.flushInvalidations();
+        }
+    }
+
+    @Test
+    public void testResolveEndpoint() throws Exception {
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "abc");
+        j.buildAndAssertSuccess(p);
+
+        JenkinsRule.WebClient wc = j.createWebClient();
+        WebRequest req = new WebRequest(new URL(j.getURL(), "blueocean-display-url/resolve"), HttpMethod.POST);
+        req.setAdditionalHeader("Content-Type", "application/json");
+        req.setRequestBody("{\"jobs\": [{\"name\": \"test/abc\", \"runs\": [1, 2]}, {\"name\": \"missing\"}]}");
+        JSONObject json = JSONObject.fromObject(wc.getPage(wc.addCrumb(req)).getWebResponse().getContentAsString());
+
+        JSONObject abc = json.getJSONArray("jobs").getJSONObject(0);
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/", getPath(abc.getString("url")));
+        Assert.assertEquals(2, abc.getJSONArray("runs").size());
+        JSONObject run = abc.getJSONArray("runs").getJSONObject(0);
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/1/", getPath(run.getString("url")));
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/test%2Fabc/detail/abc/1/tests", getPath(run.getString("tests")));
+        Assert.assertEquals("not found", json.getJSONArray("jobs").getJSONObject(1).getString("error"));
+
+        wc.setThrowExceptionOnFailingStatusCode(false);
+        int max = BlueOceanDisplayURLAction.maxEntries;
+        BlueOceanDisplayURLAction.maxEntries = 3;
+        try {
+            for (String body : List.of("{\"jobs\": [{\"name\": \"test/abc\", \"runs\": [1, \"x\"]}]}",
+                    "{\"jobs\": [{\"runs\": [1]}]}",
+                    "{\"jobs\": [{\"name\": \"test/abc\", \"runs\": [1, 2, 3]}]}",
+                    "not json")) {
+                req.setRequestBody(body);
+                Assert.assertEquals(body, 400, wc.getPage(wc.addCrumb(req)).getWebResponse().getStatusCode());
+            }
+            req.setRequestBody("{\"jobs\": [{\"name\": \"test/abc\", \"runs\": [1, 2]}]}");
+            Assert.assertEquals(200, wc.getPage(wc.addCrumb(req)).getWebResponse().getStatusCode());
+        } finally {
+            BlueOceanDisplayURLAction.maxEntries = max;
+        }
+    }
+
+    @Test
+    public void testResolveEndpointHidesDiscoverableJobs() throws Exception {
+        FreeStyleProject readable = j.createFreeStyleProject("readable");
+        FreeStyleProject hidden = j.createFreeStyleProject("hidden");
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        j.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ).everywhere().to("alice")
+                .grant(Item.READ).onItems(readable).to("alice")
+                .grant(Item.DISCOVER).onItems(hidden).to("alice"));
+
+        JenkinsRule.WebClient wc = j.createWebClient().login("alice");
+        WebRequest req = new WebRequest(new URL(j.getURL(), "blueocean-display-url/resolve"), HttpMethod.POST);
+        req.setAdditionalHeader("Content-Type", "application/json");
+        req.setRequestBody("{\"jobs\": [{\"name\": \"readable\"}, {\"name\": \"hidden\"}, {\"name\": \"readable\", \"runs\": [1]}]}");
+        JSONObject json = JSONObject.fromObject(wc.getPage(wc.addCrumb(req)).getWebResponse().getContentAsString());
+
+        JSONArray jobs = json.getJSONArray("jobs");
+        Assert.assertEquals(3, jobs.size());
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/readable/", getPath(jobs.getJSONObject(0).getString("url")));
+        Assert.assertEquals("not found", jobs.getJSONObject(1).getString("error"));
+        Assert.assertFalse(jobs.getJSONObject(1).has("url"));
+        Assert.assertEquals(1, jobs.getJSONObject(2).getJSONArray("runs").size());
+    }
+
+    @Test
+    public void testResolveURLOfDiscoverableJob() throws Exception {
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        FreeStyleProject hidden = j.createFreeStyleProject("hidden");
+        FreeStyleBuild b = j.buildAndAssertSuccess(hidden);
+        String jobURL = provider.getJobURL(hidden);
+        String runURL = provider.getRunURL(b);
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        j.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ).everywhere().to("alice")
+                .grant(Item.DISCOVER).onItems(hidden).to("alice"));
+
+        try (ACLContext ignored = ACL.as(User.getById("alice", true))) {
+            Assert.assertNull(provider.resolveJob(jobURL));
+            Assert.assertNull(provider.resolveRun(runURL));
+            Assert.assertNull(provider.getURLs("hidden", b.getNumber()));
+        }
+    }
+
+    @Test
+    public void testResolveURL() throws Exception {
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "a b");
+        FreeStyleBuild b = j.buildAndAssertSuccess(p);
+
+        Assert.assertEquals(p, provider.resolveJob(provider.getJobURL(p)));
+        Assert.assertEquals(b, provider.resolveRun(provider.getRunURL(b)));
+        Assert.assertEquals(b, provider.resolveRun(provider.getTestsURL(b)));
+        Assert.assertEquals(b, provider.resolveRun("organizations/jenkins/test%2Fa%20b/detail/a%20b/1/"));
+        Assert.assertNull(provider.resolveRun(provider.getJobURL(p)));
+        Assert.assertNull(provider.resolveJob("organizations/jenkins/test%2Fmissing/"));
+        Assert.assertNull(provider.resolveRun("organizations/jenkins/test%2Fa%20b/detail/a%20b/99999999999999999999/"));
+        Assert.assertNull(provider.resolveJob("organizations/jenkins/test%2Fa%20b/detail/a%20b/99999999999999999999/"));
+
+        String oldURL = provider.getRunURL(b);
+        p.renameTo("c");
+        Assert.assertNull(provider.resolveRun(oldURL));
+        Assert.assertEquals(b, provider.resolveRun(provider.getRunURL(b)));
+    }
+
+    @Test
+    public void testOrganizationOfMovedFolder() throws Exception {
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        MockFolder folder = j.createFolder("test");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "abc");
+        provider.flushInvalidations();
+
+        OrganizationCache organizations = new OrganizationCache();
+        Assert.assertNull(organizations.getContainingOrg(p));
+        Assert.assertSame(organizations.getContainingOrg((ItemGroup<?>) orgFolder), organizations.getContainingOrg((ItemGroup<?>) orgFolder));
+        // outside of the only organization
+        Assert.assertEquals(DisplayURLProvider.getDefault().getJobURL(p), provider.getJobURL(p));
+
+        Items.move(folder, orgFolder);
+        provider.flushInvalidations();
+        Assert.assertEquals("/jenkins/blue/organizations/TestOrg/test%2Fabc/", getPath(provider.getJobURL(p)));
+    }
+
     @Test
     public void testProjectInFolder_CustomOrganization() throws Exception {
         Folder folder = orgFolder.createProject(Folder.class, "test");
@@ -149,6 +674,34 @@ public class BlueOceanDisplayURLImplTest {
 
         url = getPath(displayURL.getTestsURL(job.getFirstBuild()));
         Assert.assertEquals("/jenkins/blue/organizations/jenkins/folder%2Ftest/detail/feature%2Ftest-1/1/tests", url);
+
+        Assert.assertEquals(job.getFirstBuild(), ((BlueOceanDisplayURLImpl) displayURL).resolveRun(url));
+    }
+
+    @Test
+    public void testMultibranchUrlsOfRenamedProject() throws Exception {
+        repo.checkoutNewBranch("feature/a")
+                .writeJenkinsFile(JenkinsFile.createFile().node().stage("stage1").echo("a").endNode())
+                .addFile("Jenkinsfile")
+                .commit("Initial commit to feature/a");
+        repo.checkoutNewBranch("feature/b")
+                .writeJenkinsFile(JenkinsFile.createFile().node().stage("stage1").echo("b").endNode())
+                .commit("Initial commit to feature/b");
+
+        BlueOceanDisplayURLImpl provider = (BlueOceanDisplayURLImpl) displayURL;
+        MultiBranchTestBuilder mp = MultiBranchTestBuilder.createProjectInFolder(j, "folder", "test", gitSampleRepoRule);
+        WorkflowJob a = mp.scheduleAndFindBranchProject("feature%2Fa");
+        WorkflowJob b = mp.findBranchProject("feature%2Fb");
+        j.waitUntilNoActivity();
+
+        // both branches share the path of their project
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/folder%2Ftest/detail/feature%2Fa/1/", getPath(provider.getRunURL(a.getFirstBuild())));
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/folder%2Ftest/detail/feature%2Fb/1/", getPath(provider.getRunURL(b.getFirstBuild())));
+
+        j.jenkins.getItemByFullName("folder", Folder.class).renameTo("renamed");
+        provider.flushInvalidations();
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/renamed%2Ftest/detail/feature%2Fa/1/", getPath(provider.getRunURL(a.getFirstBuild())));
+        Assert.assertEquals("/jenkins/blue/organizations/jenkins/renamed%2Ftest/detail/feature%2Fb/1/", getPath(provider.getRunURL(b.getFirstBuild())));
     }
 
     @Test
@@ -316,9 +869,57 @@ public class BlueOceanDisplayURLImplTest {
         }
     }
 
+    private abstract static class CustomJob {
+    }
+
+    @TestExtension("testSupportedTypes")
+    public static class CustomSupportedType extends BlueOceanSupportedType {
+        @Override
+        public boolean isSupportedJob(@NonNull Class<?> jobClass) {
+            return jobClass == CustomJob.class;
+        }
+    }
+
+    /**
+     * The root organization, and a TestOrg organization for {@link #group} once set
+     */
+    @TestExtension("testShadowVerification")
+    public static class MovableOrganizationFactory extends OrganizationFactoryImpl {
+        static volatile MockFolder group;
+
+        private final OrganizationImpl jenkins = new OrganizationImpl("jenkins", Jenkins.get());
+
+        @Override
+        public OrganizationImpl get(String name) {
+            for (BlueOrganization organization : list()) {
+                if (organization.getName().equals(name)) {
+                    return (OrganizationImpl) organization;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Collection<BlueOrganization> list() {
+            MockFolder group = MovableOrganizationFactory.group;
+            return group == null ? List.of(jenkins) : List.of(jenkins, new OrganizationImpl("TestOrg", group));
+        }
+
+        @Override
+        public OrganizationImpl of(ItemGroup group) {
+            if (group == Jenkins.get()) {
+                return jenkins;
+            }
+            MockFolder folder = MovableOrganizationFactory.group;
+            return folder != null && group == folder ? new OrganizationImpl("TestOrg", folder) : null;
+        }
+    }
+
     @TestExtension(value = { "testProjectURL_CustomOrganization",
             "testProjectInFolder_CustomOrganization",
-            "testMultibranchUrls_CustomOrganization" })
+            "testMultibranchUrls_CustomOrganization",
+            "testURLsByNumber_NoOrganization",
+            "testOrganizationOfMovedFolder" })
     public static class TestOrganizationFactoryImpl extends OrganizationFactoryImpl {
         private OrganizationImpl instance = new OrganizationImpl("TestOrg", Jenkins.get().getItem("/TestOrgFolderName", Jenkins.get(), MockFolder.class));
 
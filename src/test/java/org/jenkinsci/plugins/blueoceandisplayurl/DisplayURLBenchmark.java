@@ -0,0 +1,178 @@
+package org.jenkinsci.plugins.blueoceandisplayurl;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.ExtensionList;
+import hudson.model.FreeStyleProject;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TopLevelItem;
+import io.jenkins.blueocean.rest.factory.organization.OrganizationFactory;
+import io.jenkins.blueocean.rest.model.BlueOrganization;
+import io.jenkins.blueocean.service.embedded.OrganizationFactoryImpl;
+import io.jenkins.blueocean.service.embedded.rest.OrganizationImpl;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.branch.BranchSource;
+import jenkins.model.Jenkins;
+import jenkins.scm.impl.mock.MockSCMController;
+import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMSource;
+import org.jenkinsci.plugins.displayurlapi.DisplayURLProvider;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares {@link BlueOceanDisplayURLImpl} with {@link DisplayURLProvider#getDefault()} for freestyle, Pipeline and
+ * multibranch jobs at different folder depths and organization counts.
+ */
+@JmhBenchmark
+public class DisplayURLBenchmark {
+
+    public static class JobState extends JmhBenchmarkState {
+
+        @Param({"freestyle", "pipeline", "multibranch"})
+        public String type;
+
+        @Param({"0", "3", "6"})
+        public int depth;
+
+        @Param({"1", "10"})
+        public int organizations;
+
+        BlueOceanDisplayURLImpl blueOcean;
+        DisplayURLProvider classic;
+        Job<?, ?> job;
+        Run<?, ?> run;
+
+        @Override
+        public void setup() throws Exception {
+            Jenkins jenkins = getJenkins();
+            BenchmarkOrganizationFactory factory = new BenchmarkOrganizationFactory();
+            factory.add(new OrganizationImpl("jenkins", jenkins));
+            ItemGroup<?> parent = jenkins;
+            for (int i = 1; i < organizations; i++) {
+                Folder folder = jenkins.createProject(Folder.class, "org" + i);
+                factory.add(new OrganizationImpl("org" + i, folder));
+                parent = folder;
+            }
+            ExtensionList<OrganizationFactory> factories = ExtensionList.lookup(OrganizationFactory.class);
+            for (OrganizationFactory f : new ArrayList<>(factories)) {
+                factories.remove(f);
+            }
+            factories.add(factory);
+
+            for (int i = 0; i < depth; i++) {
+                parent = createProject(parent, Folder.class, "folder" + i);
+            }
+
+            switch (type) {
+                case "freestyle":
+                    FreeStyleProject freeStyle = createProject(parent, FreeStyleProject.class, "freestyle");
+                    job = freeStyle;
+                    run = freeStyle.scheduleBuild2(0).get();
+                    break;
+                case "pipeline":
+                    WorkflowJob pipeline = createProject(parent, WorkflowJob.class, "pipeline");
+                    pipeline.setDefinition(new CpsFlowDefinition("echo 'benchmark'", true));
+                    job = pipeline;
+                    run = pipeline.scheduleBuild2(0).get();
+                    break;
+                default:
+                    MockSCMController controller = MockSCMController.create();
+                    controller.createRepository("repo");
+                    controller.createBranch("repo", "feature/benchmark");
+                    controller.addFile("repo", "feature/benchmark", "Jenkinsfile", "Jenkinsfile",
+                            "echo 'benchmark'".getBytes(StandardCharsets.UTF_8));
+                    WorkflowMultiBranchProject project = createProject(parent, WorkflowMultiBranchProject.class, "multibranch");
+                    project.getSourcesList().add(new BranchSource(new MockSCMSource(controller, "repo", new MockSCMDiscoverBranches())));
+                    project.scheduleBuild2(0).getFuture().get();
+                    WorkflowJob branch = project.getItem("feature%2Fbenchmark");
+                    job = branch;
+                    run = branch.scheduleBuild2(0).get();
+                    break;
+            }
+
+            blueOcean = ExtensionList.lookupSingleton(BlueOceanDisplayURLImpl.class);
+            classic = DisplayURLProvider.getDefault();
+        }
+
+        private static <T extends TopLevelItem> T createProject(ItemGroup<?> parent, Class<T> type, String name) throws IOException {
+            if (parent instanceof Folder) {
+                return ((Folder) parent).createProject(type, name);
+            }
+            return Jenkins.get().createProject(type, name);
+        }
+    }
+
+    @Benchmark
+    public String blueOceanRunURL(JobState state) {
+        return state.blueOcean.getRunURL(state.run);
+    }
+
+    @Benchmark
+    public String blueOceanJobURL(JobState state) {
+        return state.blueOcean.getJobURL(state.job);
+    }
+
+    @Benchmark
+    public String blueOceanArtifactsURL(JobState state) {
+        return state.blueOcean.getArtifactsURL(state.run);
+    }
+
+    @Benchmark
+    public String classicRunURL(JobState state) {
+        return state.classic.getRunURL(state.run);
+    }
+
+    @Benchmark
+    public String classicJobURL(JobState state) {
+        return state.classic.getJobURL(state.job);
+    }
+
+    @Benchmark
+    public String classicArtifactsURL(JobState state) {
+        return state.classic.getArtifactsURL(state.run);
+    }
+
+    /**
+     * One organization for the root and one for each top level <code>orgN</code> folder.
+     */
+    static class BenchmarkOrganizationFactory extends OrganizationFactoryImpl {
+        private final Map<ItemGroup<?>, OrganizationImpl> organizations = new HashMap<>();
+
+        void add(OrganizationImpl organization) {
+            organizations.put(organization.getGroup(), organization);
+        }
+
+        @Override
+        public OrganizationImpl get(String name) {
+            for (OrganizationImpl organization : organizations.values()) {
+                if (organization.getName().equals(name)) {
+                    return organization;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Collection<BlueOrganization> list() {
+            return new ArrayList<>(organizations.values());
+        }
+
+        @Override
+        public OrganizationImpl of(ItemGroup group) {
+            return organizations.get(group);
+        }
+    }
+}